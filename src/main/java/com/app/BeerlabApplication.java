@@ -7,10 +7,8 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.session.jdbc.config.annotation.web.http.EnableJdbcHttpSession;
 
-import javax.annotation.PostConstruct;
 import java.util.TimeZone;
 
 @SpringBootApplication
@@ -19,8 +17,15 @@ import java.util.TimeZone;
         Jsr310JpaConverters.class
 })
 @EnableJdbcHttpSession
-@EnableScheduling
 public class BeerlabApplication {
+    /**
+     * Set before anything touches the database: H2 caches the zone on first use, and a later change shifts every
+     * bound timestamp against the stored ones.
+     */
+    static {
+        TimeZone.setDefault(TimeZone.getTimeZone("CET"));
+    }
+
     private RoleRepository roleRepository;
     private ProductRepository productRepository;
     private UserRepository userRepository;
@@ -36,10 +41,6 @@ public class BeerlabApplication {
 
     }
 
-    @PostConstruct
-    void init() {
-        TimeZone.setDefault(TimeZone.getTimeZone("CET"));
-    }
 /*    @Override
     public void run(String... args) throws Exception {
         if (roleRepository.count() != RoleName.values().length) {
@@ -1,15 +1,37 @@
 package com.app.controller;
 
+import com.app.model.AdmissionClass;
+import com.app.model.OrderStatus;
+import com.app.model.ProductTypes;
 import com.app.model.dto.OrderDto;
 import com.app.payloads.requests.AddProductToOrderPayload;
 import com.app.payloads.requests.ChangeOrderStatusPayload;
+import com.app.payloads.requests.MarkBatchPouredPayload;
+import com.app.payloads.requests.PosOrderPayload;
+import com.app.payloads.responses.OrderPagePayload;
+import com.app.payloads.responses.PosSyncResultPayload;
+import com.app.payloads.responses.PourBatchPayload;
+import com.app.payloads.responses.QueuePositionPayload;
+import com.app.payloads.responses.QueueSimulationPayload;
+import com.app.payloads.responses.StationOrderPayload;
+import com.app.payloads.responses.StationPayload;
 import com.app.security.CurrentUser;
 import com.app.security.CustomUserDetails;
+import com.app.service.CartService;
+import com.app.service.OrderHistoryService;
 import com.app.service.OrderService;
+import com.app.service.PosSyncService;
+import com.app.utils.AdmissionControlled;
+import com.app.utils.IdempotencyStore;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,9 +39,17 @@ import java.util.List;
 @Api(tags = "Order controller")
 public class OrderController {
     private OrderService orderService;
+    private CartService cartService;
+    private OrderHistoryService orderHistoryService;
+    private PosSyncService posSyncService;
+    private IdempotencyStore idempotencyStore;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, CartService cartService, OrderHistoryService orderHistoryService, PosSyncService posSyncService, IdempotencyStore idempotencyStore) {
         this.orderService = orderService;
+        this.cartService = cartService;
+        this.orderHistoryService = orderHistoryService;
+        this.posSyncService = posSyncService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @ApiOperation(
@@ -27,8 +57,32 @@ public class OrderController {
             response = OrderDto.class
     )
     @PostMapping
-    public OrderDto createOrder(@CurrentUser CustomUserDetails customUserDetails, @RequestBody AddProductToOrderPayload addProductToOrderPayload) {
-        return orderService.order(customUserDetails.getId(), addProductToOrderPayload);
+    @AdmissionControlled(AdmissionClass.INTAKE)
+    public OrderDto createOrder(@CurrentUser CustomUserDetails customUserDetails, @RequestBody AddProductToOrderPayload addProductToOrderPayload,
+                                @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("order:" + customUserDetails.getId(), idempotencyKey, addProductToOrderPayload,
+                () -> cartService.order(customUserDetails.getId(), addProductToOrderPayload));
+    }
+
+    @ApiOperation(
+            value = "Change quantities of many products in order at once",
+            response = OrderDto.class
+    )
+    @PostMapping("/batch")
+    @AdmissionControlled(AdmissionClass.INTAKE)
+    public OrderDto changeOrder(@CurrentUser CustomUserDetails customUserDetails, @RequestBody List<AddProductToOrderPayload> lines) {
+        return cartService.changeOrder(customUserDetails.getId(), lines);
+    }
+
+    @ApiOperation(
+            value = "Sync cash orders taken offline by the point of sale",
+            response = PosSyncResultPayload.class
+    )
+    @PostMapping("/pos/sync")
+    @PreAuthorize("hasAnyAuthority('ROLE_BARMAN', 'ROLE_ADMIN')")
+    @AdmissionControlled(AdmissionClass.PAID)
+    public List<PosSyncResultPayload> syncPosOrders(@CurrentUser CustomUserDetails customUserDetails, @RequestBody List<PosOrderPayload> orders) {
+        return posSyncService.sync(customUserDetails.getId(), orders);
     }
 
     @ApiOperation(
@@ -36,8 +90,8 @@ public class OrderController {
             response = OrderDto.class
     )
     @PostMapping("/reduce/{id}")
-    public OrderDto reduceOrderQuantity(@PathVariable Long id, @RequestBody AddProductToOrderPayload addProductToOrderPayload){
-        return orderService.reduceQuantity(id, addProductToOrderPayload);
+    public OrderDto reduceOrderQuantity(@CurrentUser CustomUserDetails customUserDetails, @PathVariable Long id, @RequestBody AddProductToOrderPayload addProductToOrderPayload){
+        return cartService.reduceQuantity(customUserDetails.getId(), id, addProductToOrderPayload);
     }
 
     @ApiOperation(
@@ -46,7 +100,7 @@ public class OrderController {
     )
     @DeleteMapping("/{orderId}/delete/{productId}")
     public OrderDto deleteProductFromOrder(@PathVariable Long orderId,@PathVariable Long productId) {
-        return orderService.deleteProductFromOrder(orderId, productId);
+        return cartService.deleteProductFromOrder(orderId, productId);
     }
 
     @ApiOperation(
@@ -58,16 +112,105 @@ public class OrderController {
         return orderService.getAllOrders();
     }
 
+    @ApiOperation(
+            value = "Fetch one page of orders, newest first",
+            response = OrderPagePayload.class
+    )
+    @GetMapping("/page")
+    public OrderPagePayload getOrdersPage(@RequestParam(required = false) OrderStatus status,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer size) {
+        return orderHistoryService.getOrdersPage(null, status, from, to, cursor, size);
+    }
+
     @GetMapping("/current")
+    @AdmissionControlled(AdmissionClass.READ)
     public List<OrderDto> getAllCurrentOrders() {
         return orderService.getQueueOrders();
     }
 
+    @ApiOperation(
+            value = "Stream current orders: queue snapshot followed by queue changes",
+            response = SseEmitter.class
+    )
+    @GetMapping(value = "/current/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCurrentOrders() {
+        return orderService.subscribeQueueOrders();
+    }
+
+    @ApiOperation(
+            value = "Fetch work list: items of queued orders grouped by product",
+            response = PourBatchPayload.class
+    )
+    @GetMapping("/current/batches")
+    public List<PourBatchPayload> getPourBatches() {
+        return orderService.getPourBatches();
+    }
+
+    @ApiOperation(
+            value = "Mark product poured for all orders of a batch",
+            response = OrderDto.class
+    )
+    @PostMapping("/current/batches")
+    public List<OrderDto> markBatchPoured(@RequestBody MarkBatchPouredPayload markBatchPouredPayload) {
+        return orderService.markBatchPoured(markBatchPouredPayload);
+    }
+
+    @ApiOperation(
+            value = "Fetch depth, progress and latency of every station",
+            response = StationPayload.class
+    )
+    @GetMapping("/stations")
+    public List<StationPayload> getStations() {
+        return orderService.getStations();
+    }
+
+    @ApiOperation(
+            value = "Fetch orders waiting for one station with that station's items only",
+            response = StationOrderPayload.class
+    )
+    @GetMapping("/stations/{station}")
+    public List<StationOrderPayload> getStationOrders(@PathVariable ProductTypes station) {
+        return orderService.getStationOrders(station);
+    }
+
+    @ApiOperation(
+            value = "Start preparing station items of an order",
+            response = OrderDto.class
+    )
+    @PostMapping("/stations/{station}/{orderId}/start")
+    public OrderDto startStation(@PathVariable ProductTypes station, @PathVariable Long orderId) {
+        return orderService.startStation(station, orderId);
+    }
+
+    @ApiOperation(
+            value = "Finish station items of an order, order completes when every station is done",
+            response = OrderDto.class
+    )
+    @PostMapping("/stations/{station}/{orderId}/done")
+    public OrderDto completeStation(@PathVariable ProductTypes station, @PathVariable Long orderId) {
+        return orderService.completeStation(station, orderId);
+    }
+
+    @ApiOperation(
+            value = "Replay recorded orders against every queue policy and report waiting times",
+            response = QueueSimulationPayload.class
+    )
+    @GetMapping("/current/simulation")
+    public List<QueueSimulationPayload> simulateQueue(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                      @RequestParam(required = false) Integer servers) {
+        return orderService.simulateQueue(from, to, servers);
+    }
+
     @ApiOperation(
             value = "Get one order",
             response = OrderDto.class
     )
     @GetMapping("/{id}")
+    @AdmissionControlled(AdmissionClass.READ)
     public OrderDto getOrder(@PathVariable Long id) {
         return orderService.getOrder(id);
     }
@@ -81,11 +224,22 @@ public class OrderController {
         return orderService.changeOrderStatus(id, changeOrderStatusPayload);
     }
 
+    @ApiOperation(
+            value = "Get order position with estimated completion time",
+            response = QueuePositionPayload.class
+    )
+    @GetMapping("/{id}/position")
+    @AdmissionControlled(AdmissionClass.READ)
+    public QueuePositionPayload getQueuePositionWithEstimate(@PathVariable Long id) {
+        return orderService.getQueuePosition(id);
+    }
+
     @ApiOperation(
             value = "Get order position",
             response = Integer.class
     )
     @PostMapping("/orderPosition/{id}")
+    @AdmissionControlled(AdmissionClass.READ)
     public Integer getQueuePosition(@PathVariable Long id) {
         return orderService.getUserQueuePosition(id);
     }
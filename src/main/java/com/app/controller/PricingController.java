@@ -0,0 +1,48 @@
+package com.app.controller;
+
+import com.app.model.dto.PricingRuleDto;
+import com.app.service.PricingService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/pricing")
+@Api(tags = "Pricing controller")
+public class PricingController {
+    private PricingService pricingService;
+
+    public PricingController(PricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    @ApiOperation(
+            value = "Get happy hour and bundle pricing rules",
+            response = PricingRuleDto.class
+    )
+    @GetMapping
+    public List<PricingRuleDto> getRules() {
+        return pricingService.getRules();
+    }
+
+    @ApiOperation(
+            value = "Add or update pricing rule, applied to orders confirmed from now on",
+            response = PricingRuleDto.class
+    )
+    @PostMapping
+    public PricingRuleDto addOrUpdateRule(@Valid @RequestBody PricingRuleDto pricingRuleDto) {
+        return pricingService.addOrUpdateRule(pricingRuleDto);
+    }
+
+    @ApiOperation(
+            value = "Delete pricing rule",
+            response = PricingRuleDto.class
+    )
+    @DeleteMapping("/{id}")
+    public PricingRuleDto deleteRule(@PathVariable Long id) {
+        return pricingService.deleteRule(id);
+    }
+}
@@ -1,14 +1,23 @@
 package com.app.controller;
 
 import com.app.model.Product;
+import com.app.model.ProductSortKey;
 import com.app.model.ProductTypes;
 import com.app.model.dto.ProductDto;
+import com.app.payloads.responses.ProductPagePayload;
+import com.app.service.ProductCatalog;
 import com.app.service.ProductService;
+import com.app.utils.ConditionalGet;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import springfox.documentation.annotations.ApiIgnore;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -19,18 +28,40 @@ import java.util.List;
 @Api(tags = "Product controller")
 public class ProductController {
     private ProductService productService;
+    private ProductCatalog productCatalog;
+    private ConditionalGet conditionalGet;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductCatalog productCatalog, ConditionalGet conditionalGet) {
         this.productService = productService;
+        this.productCatalog = productCatalog;
+        this.conditionalGet = conditionalGet;
     }
 
     @ApiOperation(
             value = "Fetch all products",
-            response = Product.class
+            response = ProductDto.class,
+            responseContainer = "List"
+    )
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getAllProducts(@ApiIgnore WebRequest request) {
+        ProductCatalog.Snapshot snapshot = productCatalog.getSnapshot();
+        return conditionalGet.respond("product.list", request, snapshot.getEtag(), snapshot::getJson);
+    }
+
+    @ApiOperation(
+            value = "Fetch one page of products matching the filters",
+            response = ProductPagePayload.class
     )
-    @GetMapping
-    public List<ProductDto> getAllProducts() {
-        return productService.getProducts();
+    @GetMapping("/page")
+    public ProductPagePayload getProductsPage(@RequestParam(required = false) ProductTypes type,
+                                              @RequestParam(required = false) Double minPrice,
+                                              @RequestParam(required = false) Double maxPrice,
+                                              @RequestParam(defaultValue = "false") boolean inStock,
+                                              @RequestParam(required = false) ProductSortKey sort,
+                                              @RequestParam(required = false) Sort.Direction direction,
+                                              @RequestParam(required = false) Integer page,
+                                              @RequestParam(required = false) Integer size) {
+        return productService.getProductsPage(type, minPrice, maxPrice, inStock, sort, direction, page, size);
     }
 
     @ApiOperation(
@@ -8,8 +8,11 @@ import com.app.payloads.responses.UserScore;
 import com.app.security.CurrentUser;
 import com.app.security.CustomUserDetails;
 import com.app.service.QuizService;
+import com.app.utils.ConditionalGet;
 import io.swagger.annotations.Api;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import springfox.documentation.annotations.ApiIgnore;
 
 import java.util.List;
@@ -19,14 +22,17 @@ import java.util.List;
 @Api(tags = "Quiz controller")
 public class QuizController {
     private QuizService quizService;
+    private ConditionalGet conditionalGet;
 
-    public QuizController(QuizService quizService) {
+    public QuizController(QuizService quizService, ConditionalGet conditionalGet) {
         this.quizService = quizService;
+        this.conditionalGet = conditionalGet;
     }
 
     @GetMapping
-    public List<QuizDto> getAllQuizzes() {
-        return quizService.getAllQuizzes();
+    public ResponseEntity<List<QuizDto>> getAllQuizzes(@ApiIgnore WebRequest request) {
+        String etag = conditionalGet.versionTag("quizzes", quizService.getQuizzesVersion());
+        return conditionalGet.respond("quiz.list", request, etag, quizService::getAllQuizzes);
     }
 
     @GetMapping("/{id}")
@@ -1,10 +1,25 @@
 package com.app.controller;
 
 import com.app.model.dto.ReportDto;
+import com.app.payloads.responses.AdmissionPayload;
+import com.app.payloads.responses.ConditionalGetPayload;
+import com.app.payloads.responses.ConflictStatisticsPayload;
+import com.app.payloads.responses.ImageUploadPayload;
+import com.app.payloads.responses.OrderArchivePayload;
+import com.app.payloads.responses.ReservationSweepPayload;
 import com.app.repository.ReportRepository;
+import com.app.service.CartReservationService;
+import com.app.service.OrderArchiveService;
+import com.app.service.ProductImagePipeline;
 import com.app.service.StatisticService;
+import com.app.utils.AdmissionControl;
+import com.app.utils.ConcurrencyRetry;
+import com.app.utils.ConditionalGet;
 import io.swagger.annotations.Api;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import springfox.documentation.annotations.ApiIgnore;
 
 import java.util.List;
 
@@ -15,19 +30,31 @@ import java.util.List;
 public class StatisticController {
 
     private StatisticService statisticService;
+    private CartReservationService cartReservationService;
+    private OrderArchiveService orderArchiveService;
+    private ConcurrencyRetry concurrencyRetry;
+    private AdmissionControl admissionControl;
+    private ConditionalGet conditionalGet;
+    private ProductImagePipeline productImagePipeline;
 
-    public StatisticController(StatisticService statisticService, ReportRepository reportRepository) {
+    public StatisticController(StatisticService statisticService, ReportRepository reportRepository, CartReservationService cartReservationService, OrderArchiveService orderArchiveService, ConcurrencyRetry concurrencyRetry, AdmissionControl admissionControl, ConditionalGet conditionalGet, ProductImagePipeline productImagePipeline) {
         this.statisticService = statisticService;
+        this.cartReservationService = cartReservationService;
+        this.orderArchiveService = orderArchiveService;
+        this.concurrencyRetry = concurrencyRetry;
+        this.admissionControl = admissionControl;
+        this.conditionalGet = conditionalGet;
+        this.productImagePipeline = productImagePipeline;
     }
 
     @GetMapping("/all")
-    public List<ReportDto> getAllReports() {
-        return statisticService.getAllReports();
+    public ResponseEntity<List<ReportDto>> getAllReports(@ApiIgnore WebRequest request) {
+        return conditionalGet.respond("report.list", request, statisticService.getClosedReportsTag(), statisticService::getAllReports);
     }
 
     @GetMapping("/{id}")
-    public ReportDto getReportById(@PathVariable Long id) {
-        return statisticService.getReportById(id);
+    public ResponseEntity<ReportDto> getReportById(@PathVariable Long id, @ApiIgnore WebRequest request) {
+        return conditionalGet.respond("report.closed", request, statisticService.getReportTag(id), () -> statisticService.getReportById(id));
     }
 
     @GetMapping("/realizationOrderTime")
@@ -35,6 +62,36 @@ public class StatisticController {
         return statisticService.realizationOrderTime();
     }
 
+    @GetMapping("/reservations")
+    public ReservationSweepPayload getReservationSweep() {
+        return cartReservationService.getLastSweep();
+    }
+
+    @GetMapping("/archive")
+    public OrderArchivePayload getOrderArchive() {
+        return orderArchiveService.getLastArchive();
+    }
+
+    @GetMapping("/admission")
+    public AdmissionPayload getAdmission() {
+        return admissionControl.getStatistics();
+    }
+
+    @GetMapping("/images")
+    public ImageUploadPayload getImageUploads() {
+        return productImagePipeline.getStatistics();
+    }
+
+    @GetMapping("/etags")
+    public List<ConditionalGetPayload> getConditionalGets() {
+        return conditionalGet.getStatistics();
+    }
+
+    @GetMapping("/conflicts")
+    public List<ConflictStatisticsPayload> getConflictStatistics() {
+        return concurrencyRetry.getStatistics();
+    }
+
     @GetMapping("/newReport")
     public ReportDto generateNewReport() {
         return statisticService.createNewReport();
@@ -1,18 +1,29 @@
 package com.app.controller;
 
+import com.app.model.AdmissionClass;
+import com.app.model.OrderStatus;
 import com.app.model.dto.OrderDto;
 import com.app.model.dto.UserDto;
 import com.app.payloads.requests.PayPalPayload;
+import com.app.payloads.responses.OrderPagePayload;
 import com.app.security.CurrentUser;
 import com.app.security.CustomUserDetails;
+import com.app.service.CartService;
+import com.app.service.OrderHistoryService;
 import com.app.service.OrderService;
 import com.app.service.UserService;
+import com.app.utils.AdmissionControlled;
+import com.app.utils.IdempotencyStore;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import springfox.documentation.annotations.ApiIgnore;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 
@@ -22,10 +33,16 @@ import java.util.List;
 public class UserController {
     private UserService userService;
     private OrderService orderService;
+    private CartService cartService;
+    private OrderHistoryService orderHistoryService;
+    private IdempotencyStore idempotencyStore;
 
-    public UserController(UserService userService, OrderService orderService) {
+    public UserController(UserService userService, OrderService orderService, CartService cartService, OrderHistoryService orderHistoryService, IdempotencyStore idempotencyStore) {
         this.userService = userService;
         this.orderService = orderService;
+        this.cartService = cartService;
+        this.orderHistoryService = orderHistoryService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @ApiOperation(
@@ -55,13 +72,36 @@ public class UserController {
         return orderService.getAllUserOrders(userDetails.getId());
     }
 
+    @ApiOperation(
+            value = "Get one page of user orders, newest first",
+            response = OrderPagePayload.class
+    )
+    @GetMapping("/orders/page")
+    public OrderPagePayload getUserOrdersPage(@ApiIgnore @CurrentUser CustomUserDetails userDetails,
+                                              @RequestParam(required = false) OrderStatus status,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer size) {
+        return orderHistoryService.getOrdersPage(userDetails.getId(), status, from, to, cursor, size);
+    }
+
+    @ApiOperation(
+            value = "Stream queue position and status changes of user orders",
+            response = SseEmitter.class
+    )
+    @GetMapping(value = "/orders/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUserOrders(@ApiIgnore @CurrentUser CustomUserDetails userDetails) {
+        return orderService.subscribeUserOrders(userDetails.getId());
+    }
+
     @ApiOperation(
             value = "Get user completed orders",
             response = OrderDto.class
     )
     @GetMapping("/completedOrders")
     public List<OrderDto> getUserCompletedOrders(@ApiIgnore @CurrentUser CustomUserDetails userDetails) {
-        return orderService.getUserCompletedOrders(userDetails.getId());
+        return orderHistoryService.getUserCompletedOrders(userDetails.getId());
     }
 
     @ApiOperation(
@@ -69,8 +109,11 @@ public class UserController {
             response = OrderDto.class
     )
     @PostMapping("/confirm/{method}")
-    public OrderDto confirmOrder(@CurrentUser CustomUserDetails userDetails, @PathVariable Long method) {
-        return orderService.confirmOrder(userDetails.getId(), method);
+    @AdmissionControlled(AdmissionClass.PAID)
+    public OrderDto confirmOrder(@CurrentUser CustomUserDetails userDetails, @PathVariable Long method,
+                                 @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("confirm:" + userDetails.getId(), idempotencyKey, method,
+                () -> orderService.confirmOrder(userDetails.getId(), method));
     }
 
     @ApiOperation(
@@ -79,7 +122,7 @@ public class UserController {
     )
     @GetMapping("/order")
     public OrderDto getNotPaidOrder(@ApiIgnore @CurrentUser CustomUserDetails userDetails) {
-        return orderService.getNotPaidUserOrder(userDetails.getId());
+        return cartService.getNotPaidUserOrder(userDetails.getId());
     }
 
     @ApiOperation(
@@ -87,9 +130,12 @@ public class UserController {
             response = ResponseEntity.class
     )
     @PostMapping("/addMoney")
-    public ResponseEntity addBalanceForUser(@ApiIgnore @CurrentUser CustomUserDetails userDetails, @RequestBody PayPalPayload payPalPayload) {
-        userService.addBalanceForUser(userDetails.getId(), payPalPayload);
-        return ResponseEntity.ok().body("OK");
+    public ResponseEntity addBalanceForUser(@ApiIgnore @CurrentUser CustomUserDetails userDetails, @RequestBody PayPalPayload payPalPayload,
+                                            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("addMoney:" + userDetails.getId(), idempotencyKey, payPalPayload, () -> {
+            userService.addBalanceForUser(userDetails.getId(), payPalPayload);
+            return ResponseEntity.ok().body("OK");
+        });
     }
 
     @ApiOperation(
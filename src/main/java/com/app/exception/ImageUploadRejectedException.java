@@ -0,0 +1,8 @@
+package com.app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class ImageUploadRejectedException extends RuntimeException {
+}
@@ -0,0 +1,54 @@
+package com.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "archived_order", indexes = {
+        @Index(name = "idx_archived_order_user_started_time", columnList = "userId, startedTime, id")
+})
+public class ArchivedOrder {
+    @Id
+    private Long id;
+
+    private Long userId;
+
+    @OneToMany(mappedBy = "order", fetch = FetchType.LAZY)
+    @Builder.Default
+    private List<ArchivedOrderItem> orderItems = new LinkedList<>();
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+    private LocalDateTime startedTime;
+    private LocalDateTime completeTime;
+    private Double totalPrice;
+    private Double discount;
+    @Column(unique = true)
+    private String clientId;
+    private LocalDateTime archivedTime;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ArchivedOrder order = (ArchivedOrder) o;
+        return Objects.equals(id, order.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
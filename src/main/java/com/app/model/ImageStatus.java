@@ -0,0 +1,5 @@
+package com.app.model;
+
+public enum ImageStatus {
+    PENDING, READY, FAILED
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -17,17 +19,29 @@ import java.util.Objects;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "`Order`")
+@Table(name = "`Order`", indexes = {
+        @Index(name = "idx_order_status_started_time", columnList = "status, startedTime, id"),
+        @Index(name = "idx_order_user_status", columnList = "user_id, status"),
+        @Index(name = "idx_order_status_reserved_until", columnList = "status, reservedUntil")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @OneToMany(mappedBy = "order", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @Column(name = "user_id", insertable = false, updatable = false)
+    private Long userId;
+
+    @OneToMany(mappedBy = "order", fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+    @Fetch(FetchMode.SUBSELECT)
     private List<OrderItem> orderItems = new LinkedList<>();
 
     @Enumerated(EnumType.STRING)
@@ -36,7 +50,12 @@ public class Order {
     private LocalDateTime startedTime;
     @DateTimeFormat(pattern = "yyyy-MM-ddTHH:mm:ss")
     private LocalDateTime completeTime;
+    private LocalDateTime reservedUntil;
     private Double totalPrice;
+    @Column(columnDefinition = "double default 0 not null")
+    private double discount;
+    @Column(unique = true)
+    private String clientId;
 
     @Override
     public boolean equals(Object o) {
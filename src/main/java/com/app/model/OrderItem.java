@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
@@ -30,6 +31,11 @@ public class OrderItem {
 
     private Integer quantity;
 
+    @Column(columnDefinition = "boolean default false not null")
+    private boolean poured;
+
+    private LocalDateTime startedTime;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,5 @@
+package com.app.model;
+
+public enum PosSyncStatus {
+    CREATED, DUPLICATE, REJECTED
+}
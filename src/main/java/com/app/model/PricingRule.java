@@ -0,0 +1,49 @@
+package com.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalTime;
+import java.util.Objects;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class PricingRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String name;
+    @Enumerated(EnumType.STRING)
+    private PricingRuleType type;
+
+    private Long productId;
+    @Enumerated(EnumType.STRING)
+    private ProductTypes productType;
+
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    private Double discountPercent;
+    private Integer bundleQuantity;
+    private Double bundlePrice;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PricingRule that = (PricingRule) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,5 @@
+package com.app.model;
+
+public enum PricingRuleType {
+    HAPPY_HOUR, BUNDLE
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import java.util.*;
@@ -13,10 +14,19 @@ import java.util.*;
 @NoArgsConstructor
 @Builder
 @Entity
+@BatchSize(size = 50)
+@Table(indexes = {
+        @Index(name = "idx_product_type_price", columnList = "productType, price"),
+        @Index(name = "idx_product_price", columnList = "price")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
     private String description;
     private String imgUrl;
     private String brand;
@@ -25,7 +35,12 @@ public class Product {
     private Double minimalPrice;
     private String productType;
 
-    @OneToMany(mappedBy = "order", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @Enumerated(EnumType.STRING)
+    private ImageStatus imageStatus;
+    private String pendingImage;
+
+    // inverse side only: order items belong to their orders, so deleting a product must never cascade into them
+    @OneToMany(mappedBy = "product", fetch = FetchType.LAZY)
     private List<OrderItem> orderItems = new LinkedList<>();
 
     @Override
@@ -0,0 +1,15 @@
+package com.app.model;
+
+public enum ProductSortKey {
+    ID("id"), BRAND("brand"), PRICE("price"), QUANTITY("quantity");
+
+    private final String property;
+
+    ProductSortKey(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+}
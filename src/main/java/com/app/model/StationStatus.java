@@ -0,0 +1,5 @@
+package com.app.model;
+
+public enum StationStatus {
+    WAITING, IN_PROGRESS, DONE
+}
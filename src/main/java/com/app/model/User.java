@@ -27,6 +27,10 @@ public class    User implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @Column(name = "username")
     @NotBlank
     private String username;
@@ -14,7 +14,7 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class OrderDto {
     private Long id;
 
@@ -25,5 +25,8 @@ public class OrderDto {
     private LocalDateTime startedTime;
     @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime completeTime;
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime estimatedCompleteTime;
     private Double totalPrice;
+    private Double discount;
 }
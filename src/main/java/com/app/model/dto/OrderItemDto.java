@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -14,4 +16,6 @@ public class OrderItemDto {
     private ProductDto productDto;
     private Double unitPrice;
     private Integer quantity;
+    private boolean poured;
+    private LocalDateTime startedTime;
 }
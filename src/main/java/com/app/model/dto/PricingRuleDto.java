@@ -0,0 +1,29 @@
+package com.app.model.dto;
+
+import com.app.model.PricingRuleType;
+import com.app.model.ProductTypes;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PricingRuleDto {
+    private Long id;
+    private String name;
+    @NotNull
+    private PricingRuleType type;
+    private Long productId;
+    private ProductTypes productType;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Double discountPercent;
+    private Integer bundleQuantity;
+    private Double bundlePrice;
+}
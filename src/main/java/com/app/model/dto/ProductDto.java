@@ -1,5 +1,6 @@
 package com.app.model.dto;
 
+import com.app.model.ImageStatus;
 import com.app.model.ProductTypes;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,4 +20,6 @@ public class ProductDto {
     private Integer quantity;
     private Double minimalPrice;
     private ProductTypes productType;
+    private Long version;
+    private ImageStatus imageStatus;
 }
@@ -78,6 +78,8 @@ public class ModelMapper {
                 .id(orderItem.getId())
                 .quantity(orderItem.getQuantity())
                 .unitPrice(orderItem.getUnitPrice())
+                .poured(orderItem.isPoured())
+                .startedTime(orderItem.getStartedTime())
                 .productDto(orderItem.getProduct() == null ? null : fromProductToProductDto(orderItem.getProduct()))
                 .build();
     }
@@ -88,6 +90,8 @@ public class ModelMapper {
                 .id(orderItemDto.getId())
                 .quantity(orderItemDto.getQuantity())
                 .unitPrice(orderItemDto.getUnitPrice())
+                .poured(orderItemDto.isPoured())
+                .startedTime(orderItemDto.getStartedTime())
                 .product(orderItemDto.getProductDto() == null ? null : fromProductDtoToProduct(orderItemDto.getProductDto()))
                 .build();
     }
@@ -101,6 +105,32 @@ public class ModelMapper {
                 .completeTime(order.getCompleteTime())
                 .startedTime(order.getStartedTime())
                 .totalPrice(order.getTotalPrice())
+                .discount(order.getDiscount())
+                .build();
+    }
+
+    public OrderItemDto fromArchivedOrderItemToOrderItemDto(ArchivedOrderItem orderItem) {
+        return orderItem ==
+                null ? null : OrderItemDto.builder()
+                .id(orderItem.getId())
+                .quantity(orderItem.getQuantity())
+                .unitPrice(orderItem.getUnitPrice())
+                .poured(orderItem.isPoured())
+                .startedTime(orderItem.getStartedTime())
+                .productDto(orderItem.getProduct() == null ? null : fromProductToProductDto(orderItem.getProduct()))
+                .build();
+    }
+
+    public OrderDto fromArchivedOrderToOrderDto(ArchivedOrder order) {
+        return order ==
+                null ? null : OrderDto.builder()
+                .id(order.getId())
+                .status(order.getStatus())
+                .orderItemsDto(order.getOrderItems() == null ? null : order.getOrderItems().stream().map(this::fromArchivedOrderItemToOrderItemDto).collect(Collectors.toList()))
+                .completeTime(order.getCompleteTime())
+                .startedTime(order.getStartedTime())
+                .totalPrice(order.getTotalPrice())
+                .discount(order.getDiscount())
                 .build();
     }
 
@@ -114,6 +144,39 @@ public class ModelMapper {
                 .completeTime(orderDto.getCompleteTime())
                 .startedTime(orderDto.getStartedTime())
                 .totalPrice(orderDto.getTotalPrice())
+                .discount(orderDto.getDiscount() == null ? 0 : orderDto.getDiscount())
+                .build();
+    }
+
+    public PricingRuleDto fromPricingRuleToPricingRuleDto(PricingRule pricingRule) {
+        return pricingRule ==
+                null ? null : PricingRuleDto.builder()
+                .id(pricingRule.getId())
+                .name(pricingRule.getName())
+                .type(pricingRule.getType())
+                .productId(pricingRule.getProductId())
+                .productType(pricingRule.getProductType())
+                .startTime(pricingRule.getStartTime())
+                .endTime(pricingRule.getEndTime())
+                .discountPercent(pricingRule.getDiscountPercent())
+                .bundleQuantity(pricingRule.getBundleQuantity())
+                .bundlePrice(pricingRule.getBundlePrice())
+                .build();
+    }
+
+    public PricingRule fromPricingRuleDtoToPricingRule(PricingRuleDto pricingRuleDto) {
+        return pricingRuleDto ==
+                null ? null : PricingRule.builder()
+                .id(pricingRuleDto.getId())
+                .name(pricingRuleDto.getName())
+                .type(pricingRuleDto.getType())
+                .productId(pricingRuleDto.getProductId())
+                .productType(pricingRuleDto.getProductType())
+                .startTime(pricingRuleDto.getStartTime())
+                .endTime(pricingRuleDto.getEndTime())
+                .discountPercent(pricingRuleDto.getDiscountPercent())
+                .bundleQuantity(pricingRuleDto.getBundleQuantity())
+                .bundlePrice(pricingRuleDto.getBundlePrice())
                 .build();
     }
 
@@ -128,6 +191,8 @@ public class ModelMapper {
                 .quantity(product.getQuantity())
                 .minimalPrice(product.getMinimalPrice())
                 .productType(ProductTypes.valueOf(product.getProductType()))
+                .version(product.getVersion())
+                .imageStatus(product.getImageStatus())
                 .build();
     }
 
@@ -142,6 +207,7 @@ public class ModelMapper {
                 .quantity(productDto.getQuantity())
                 .minimalPrice(productDto.getMinimalPrice())
                 .productType(productDto.getProductType().toString().toUpperCase())
+                .version(productDto.getVersion())
                 .build();
     }
 
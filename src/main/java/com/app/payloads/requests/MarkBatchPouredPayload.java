@@ -0,0 +1,21 @@
+package com.app.payloads.requests;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MarkBatchPouredPayload {
+    @NotNull
+    private Long productId;
+    @NotEmpty
+    private List<Long> orderIds;
+}
@@ -0,0 +1,22 @@
+package com.app.payloads.requests;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PosOrderPayload {
+    @NotBlank
+    private String clientId;
+    private Long userId;
+    private LocalDateTime createdTime;
+    private List<AddProductToOrderPayload> items;
+}
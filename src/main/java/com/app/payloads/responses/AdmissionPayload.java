@@ -0,0 +1,22 @@
+package com.app.payloads.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdmissionPayload {
+    private boolean enabled;
+    private int queueDepth;
+    private int maxQueueDepth;
+    private int inFlight;
+    private int maxInFlight;
+    private double saturation;
+    private long admitted;
+    private long rejectedQueueFull;
+    private long rejectedInFlight;
+}
@@ -0,0 +1,17 @@
+package com.app.payloads.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConditionalGetPayload {
+    private String endpoint;
+    private long requests;
+    private long notModified;
+    private double hitRatio;
+}
@@ -0,0 +1,18 @@
+package com.app.payloads.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConflictStatisticsPayload {
+    private String operation;
+    private long executions;
+    private long conflicts;
+    private long exhausted;
+    private double conflictRate;
+}
@@ -0,0 +1,21 @@
+package com.app.payloads.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageUploadPayload {
+    private int inFlight;
+    private int capacity;
+    private long uploaded;
+    private long failed;
+    private long retried;
+    private long superseded;
+    private long rejected;
+    private long droppedDeletes;
+}
@@ -0,0 +1,20 @@
+package com.app.payloads.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderArchivePayload {
+    private LocalDateTime lastArchive;
+    private long lastArchiveMillis;
+    private LocalDateTime lastCutoff;
+    private int lastArchivedOrders;
+    private long totalArchivedOrders;
+}
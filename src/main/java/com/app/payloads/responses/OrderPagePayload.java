@@ -0,0 +1,20 @@
+package com.app.payloads.responses;
+
+import com.app.model.dto.OrderDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPagePayload {
+    @Builder.Default
+    private List<OrderDto> orders = new ArrayList<>();
+    private String nextCursor;
+}
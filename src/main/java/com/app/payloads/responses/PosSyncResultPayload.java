@@ -0,0 +1,18 @@
+package com.app.payloads.responses;
+
+import com.app.model.PosSyncStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PosSyncResultPayload {
+    private String clientId;
+    private Long orderId;
+    private PosSyncStatus status;
+    private String reason;
+}
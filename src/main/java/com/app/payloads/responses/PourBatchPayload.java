@@ -0,0 +1,23 @@
+package com.app.payloads.responses;
+
+import com.app.model.ProductTypes;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PourBatchPayload {
+    private Long productId;
+    private String brand;
+    private ProductTypes productType;
+    private Integer quantity;
+    private LocalDateTime oldestStartedTime;
+    private List<Long> orderIds;
+}
@@ -0,0 +1,23 @@
+package com.app.payloads.responses;
+
+import com.app.model.dto.ProductDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPagePayload {
+    @Builder.Default
+    private List<ProductDto> products = new ArrayList<>();
+    private int page;
+    private int size;
+    private long totalElements;
+    private boolean hasNext;
+}
@@ -0,0 +1,20 @@
+package com.app.payloads.responses;
+
+import com.app.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueuePositionPayload {
+    private Long orderId;
+    private OrderStatus status;
+    private Integer position;
+    private LocalDateTime estimatedCompleteTime;
+}
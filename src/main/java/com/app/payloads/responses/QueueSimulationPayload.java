@@ -0,0 +1,18 @@
+package com.app.payloads.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueueSimulationPayload {
+    private String policy;
+    private int orders;
+    private double meanWaitSeconds;
+    private double p95WaitSeconds;
+    private double maxWaitSeconds;
+}
@@ -0,0 +1,21 @@
+package com.app.payloads.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationSweepPayload {
+    private LocalDateTime lastSweep;
+    private long lastSweepMillis;
+    private int lastReleasedCarts;
+    private long lastReleasedUnits;
+    private long totalReleasedCarts;
+    private long totalReleasedUnits;
+}
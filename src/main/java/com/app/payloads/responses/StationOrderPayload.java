@@ -0,0 +1,22 @@
+package com.app.payloads.responses;
+
+import com.app.model.StationStatus;
+import com.app.model.dto.OrderItemDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StationOrderPayload {
+    private Long orderId;
+    private StationStatus status;
+    private LocalDateTime startedTime;
+    private List<OrderItemDto> orderItemsDto;
+}
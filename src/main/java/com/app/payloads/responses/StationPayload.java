@@ -0,0 +1,21 @@
+package com.app.payloads.responses;
+
+import com.app.model.ProductTypes;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StationPayload {
+    private ProductTypes station;
+    private int depth;
+    private int inProgress;
+    private long completed;
+    private double meanWaitSeconds;
+    private double meanLatencySeconds;
+    private double maxLatencySeconds;
+}
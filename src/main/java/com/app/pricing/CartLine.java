@@ -0,0 +1,31 @@
+package com.app.pricing;
+
+public class CartLine {
+    private final Long productId;
+    private final String productType;
+    private final double unitPrice;
+    private final int quantity;
+
+    public CartLine(Long productId, String productType, double unitPrice, int quantity) {
+        this.productId = productId;
+        this.productType = productType;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductType() {
+        return productType;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,241 @@
+package com.app.pricing;
+
+import com.app.model.PricingRule;
+import com.app.model.PricingRuleType;
+
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Immutable matcher built once from the stored rules. The day is cut into segments at every rule start and end
+ * time, and each segment indexes the rules active in it by product id, product type and "any product". Pricing a
+ * cart is then a binary search for the segment plus lookups of the rules that can apply to its lines, instead of
+ * scanning and time-checking all of them. Happy hour rules lower the unit price of a line (the best active rule wins,
+ * they do not stack); bundle rules are then applied greedily in rule order to the most expensive units not yet used by
+ * another bundle.
+ */
+public class CompiledPricingRules {
+    private static final Rule[] NONE = new Rule[0];
+
+    public static final CompiledPricingRules EMPTY = new CompiledPricingRules(Collections.emptyList());
+
+    private final int size;
+    private final long[] boundaries;
+    private final Segment[] segments;
+
+    public CompiledPricingRules(Collection<PricingRule> rules) {
+        List<Rule> happyHourRules = new ArrayList<>();
+        List<Rule> bundleRules = new ArrayList<>();
+        rules.stream()
+                .filter(CompiledPricingRules::isValid)
+                .sorted(Comparator.comparing(PricingRule::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEach(rule -> (rule.getType() == PricingRuleType.HAPPY_HOUR ? happyHourRules : bundleRules).add(new Rule(rule, happyHourRules.size() + bundleRules.size())));
+        this.size = happyHourRules.size() + bundleRules.size();
+
+        TreeSet<Long> times = new TreeSet<>();
+        times.add(0L);
+        for (List<Rule> list : Arrays.asList(happyHourRules, bundleRules))
+            for (Rule rule : list)
+                if (rule.startTime != null && rule.endTime != null) {
+                    times.add(rule.startTime.toNanoOfDay());
+                    times.add(rule.endTime.toNanoOfDay());
+                }
+        this.boundaries = times.stream().mapToLong(Long::longValue).toArray();
+        this.segments = new Segment[boundaries.length];
+        for (int i = 0; i < boundaries.length; i++) {
+            LocalTime time = LocalTime.ofNanoOfDay(boundaries[i]);
+            segments[i] = new Segment(new Index(activeAt(happyHourRules, time)), new Index(activeAt(bundleRules, time)));
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public PricedCart price(List<CartLine> lines, LocalTime time) {
+        int found = Arrays.binarySearch(boundaries, time.toNanoOfDay());
+        Segment segment = segments[found >= 0 ? found : -found - 2];
+        int count = lines.size();
+        double[] unitPrices = new double[count];
+        double subtotal = 0;
+        for (int i = 0; i < count; i++) {
+            CartLine line = lines.get(i);
+            double percent = 0;
+            for (Rule[] candidates : segment.happyHours.candidates(line))
+                for (Rule rule : candidates)
+                    if (rule.discountPercent > percent)
+                        percent = rule.discountPercent;
+            unitPrices[i] = percent == 0 ? line.getUnitPrice() : round(line.getUnitPrice() * (100 - percent) / 100);
+            subtotal += unitPrices[i] * line.getQuantity();
+        }
+
+        double discount = segment.bundles.isEmpty() ? 0 : bundleDiscount(segment.bundles, lines, unitPrices);
+        return new PricedCart(unitPrices, round(discount), round(subtotal - discount));
+    }
+
+    private double bundleDiscount(Index bundles, List<CartLine> lines, double[] unitPrices) {
+        int count = lines.size();
+        List<Rule> candidates = new ArrayList<>();
+        BitSet seen = new BitSet(size);
+        for (CartLine line : lines)
+            for (Rule[] rules : bundles.candidates(line))
+                for (Rule rule : rules)
+                    if (!seen.get(rule.order)) {
+                        seen.set(rule.order);
+                        candidates.add(rule);
+                    }
+        if (candidates.isEmpty())
+            return 0;
+        candidates.sort(Comparator.comparingInt(rule -> rule.order));
+
+        Integer[] byPrice = new Integer[count];
+        for (int i = 0; i < count; i++)
+            byPrice[i] = i;
+        Arrays.sort(byPrice, (a, b) -> Double.compare(unitPrices[b], unitPrices[a]));
+        int[] remaining = new int[count];
+        for (int i = 0; i < count; i++)
+            remaining[i] = lines.get(i).getQuantity();
+
+        double discount = 0;
+        for (Rule rule : candidates) {
+            int units = 0;
+            for (int i = 0; i < count; i++)
+                if (rule.matches(lines.get(i)))
+                    units += remaining[i];
+            int take = units / rule.bundleQuantity * rule.bundleQuantity;
+            if (take == 0)
+                continue;
+            double value = 0;
+            int left = take;
+            for (int index : byPrice) {
+                if (left == 0)
+                    break;
+                if (!rule.matches(lines.get(index)))
+                    continue;
+                int used = Math.min(left, remaining[index]);
+                value += used * unitPrices[index];
+                left -= used;
+            }
+            double saving = value - take / rule.bundleQuantity * rule.bundlePrice;
+            if (saving <= 0)
+                continue;
+            left = take;
+            for (int index : byPrice) {
+                if (left == 0)
+                    break;
+                if (!rule.matches(lines.get(index)))
+                    continue;
+                int used = Math.min(left, remaining[index]);
+                remaining[index] -= used;
+                left -= used;
+            }
+            discount += saving;
+        }
+        return discount;
+    }
+
+    private static List<Rule> activeAt(List<Rule> rules, LocalTime time) {
+        List<Rule> active = new ArrayList<>();
+        for (Rule rule : rules)
+            if (rule.activeAt(time))
+                active.add(rule);
+        return active;
+    }
+
+    private static boolean isValid(PricingRule rule) {
+        if (rule.getType() == PricingRuleType.HAPPY_HOUR)
+            return rule.getDiscountPercent() != null && rule.getDiscountPercent() > 0 && rule.getDiscountPercent() <= 100;
+        return rule.getType() == PricingRuleType.BUNDLE
+                && rule.getBundleQuantity() != null && rule.getBundleQuantity() > 0
+                && rule.getBundlePrice() != null && rule.getBundlePrice() >= 0;
+    }
+
+    private static double round(double price) {
+        return Math.round(price * 100) / 100.0;
+    }
+
+    private static class Segment {
+        private final Index happyHours;
+        private final Index bundles;
+
+        private Segment(Index happyHours, Index bundles) {
+            this.happyHours = happyHours;
+            this.bundles = bundles;
+        }
+    }
+
+    private static class Index {
+        private final Map<Long, Rule[]> byProduct = new HashMap<>();
+        private final Map<String, Rule[]> byType = new HashMap<>();
+        private final Rule[] any;
+
+        private Index(List<Rule> rules) {
+            Map<Long, List<Rule>> products = new HashMap<>();
+            Map<String, List<Rule>> types = new HashMap<>();
+            List<Rule> all = new ArrayList<>();
+            for (Rule rule : rules) {
+                if (rule.productId != null)
+                    products.computeIfAbsent(rule.productId, id -> new ArrayList<>()).add(rule);
+                else if (rule.productType != null)
+                    types.computeIfAbsent(rule.productType, type -> new ArrayList<>()).add(rule);
+                else
+                    all.add(rule);
+            }
+            products.forEach((id, list) -> byProduct.put(id, list.toArray(NONE)));
+            types.forEach((type, list) -> byType.put(type, list.toArray(NONE)));
+            any = all.toArray(NONE);
+        }
+
+        private boolean isEmpty() {
+            return byProduct.isEmpty() && byType.isEmpty() && any.length == 0;
+        }
+
+        private Rule[][] candidates(CartLine line) {
+            return new Rule[][]{
+                    line.getProductId() == null ? NONE : byProduct.getOrDefault(line.getProductId(), NONE),
+                    line.getProductType() == null ? NONE : byType.getOrDefault(line.getProductType(), NONE),
+                    any
+            };
+        }
+    }
+
+    private static class Rule {
+        private final int order;
+        private final Long productId;
+        private final String productType;
+        private final LocalTime startTime;
+        private final LocalTime endTime;
+        private final double discountPercent;
+        private final int bundleQuantity;
+        private final double bundlePrice;
+
+        private Rule(PricingRule rule, int order) {
+            this.order = order;
+            this.productId = rule.getProductId();
+            this.productType = rule.getProductType() == null ? null : rule.getProductType().name();
+            this.startTime = rule.getStartTime();
+            this.endTime = rule.getEndTime();
+            this.discountPercent = rule.getDiscountPercent() == null ? 0 : rule.getDiscountPercent();
+            this.bundleQuantity = rule.getBundleQuantity() == null ? 0 : rule.getBundleQuantity();
+            this.bundlePrice = rule.getBundlePrice() == null ? 0 : rule.getBundlePrice();
+        }
+
+        private boolean matches(CartLine line) {
+            if (productId != null)
+                return productId.equals(line.getProductId());
+            return productType == null || productType.equals(line.getProductType());
+        }
+
+        private boolean activeAt(LocalTime time) {
+            if (startTime == null || endTime == null)
+                return true;
+            if (startTime.isBefore(endTime))
+                return !time.isBefore(startTime) && time.isBefore(endTime);
+            return !time.isBefore(startTime) || time.isBefore(endTime);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.app.pricing;
+
+public class PricedCart {
+    private final double[] unitPrices;
+    private final double discount;
+    private final double totalPrice;
+
+    PricedCart(double[] unitPrices, double discount, double totalPrice) {
+        this.unitPrices = unitPrices;
+        this.discount = discount;
+        this.totalPrice = totalPrice;
+    }
+
+    /**
+     * Unit price of each cart line after time-window discounts, in the order the lines were given.
+     */
+    public double getUnitPrice(int line) {
+        return unitPrices[line];
+    }
+
+    /**
+     * Order-level saving from bundles, on top of the line prices.
+     */
+    public double getDiscount() {
+        return discount;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+}
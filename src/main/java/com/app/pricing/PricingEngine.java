@@ -0,0 +1,32 @@
+package com.app.pricing;
+
+import com.app.repository.PricingRuleRepository;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalTime;
+import java.util.List;
+
+@Component
+public class PricingEngine {
+    private volatile CompiledPricingRules rules = CompiledPricingRules.EMPTY;
+
+    private PricingRuleRepository pricingRuleRepository;
+
+    public PricingEngine(PricingRuleRepository pricingRuleRepository) {
+        this.pricingRuleRepository = pricingRuleRepository;
+    }
+
+    @PostConstruct
+    public void reload() {
+        rules = new CompiledPricingRules(pricingRuleRepository.findAll());
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    public PricedCart price(List<CartLine> lines, LocalTime time) {
+        return rules.price(lines, time);
+    }
+}
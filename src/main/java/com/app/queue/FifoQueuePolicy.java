@@ -0,0 +1,18 @@
+package com.app.queue;
+
+import com.app.model.dto.OrderDto;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FifoQueuePolicy implements QueuePolicy {
+
+    @Override
+    public String getName() {
+        return "fifo";
+    }
+
+    @Override
+    public double score(OrderDto order) {
+        return 0;
+    }
+}
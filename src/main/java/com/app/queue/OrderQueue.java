@@ -0,0 +1,336 @@
+package com.app.queue;
+
+import com.app.model.OrderStatus;
+import com.app.model.ProductTypes;
+import com.app.model.StationStatus;
+import com.app.model.dto.OrderDto;
+import com.app.model.dto.OrderItemDto;
+import com.app.model.modelMappers.ModelMapper;
+import com.app.payloads.responses.PourBatchPayload;
+import com.app.payloads.responses.StationOrderPayload;
+import com.app.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Component
+public class OrderQueue {
+    public static final Set<OrderStatus> QUEUE_STATUSES = Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.of(OrderStatus.CLOSED, OrderStatus.NOT_PAID)));
+
+    private final OrderStatisticTree<QueueKey> tree = new OrderStatisticTree<>(ServiceTimeEstimator.DIMENSIONS, key -> key.work);
+    private final Map<Long, QueueKey> keys = new HashMap<>();
+    private final Map<Long, OrderDto> orders = new HashMap<>();
+    private final Map<Long, Set<Long>> userOrders = new HashMap<>();
+    private final PourBatchIndex pourBatches = new PourBatchIndex();
+    private final Map<ProductTypes, TreeSet<QueueKey>> stations = new EnumMap<>(ProductTypes.class);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile int depth;
+    private int changedFrom = Integer.MAX_VALUE;
+
+    @Value("${queue.policy:fifo}")
+    private String policyName;
+    @Value("${queue.batch.window-seconds:300}")
+    private long batchWindowSeconds;
+
+    private OrderRepository orderRepository;
+    private ModelMapper modelMapper;
+    private List<QueuePolicy> policies;
+    private QueuePolicy policy;
+    private ServiceTimeEstimator serviceTimeEstimator;
+
+    public OrderQueue(OrderRepository orderRepository, ModelMapper modelMapper, List<QueuePolicy> policies, ServiceTimeEstimator serviceTimeEstimator) {
+        this.orderRepository = orderRepository;
+        this.modelMapper = modelMapper;
+        this.policies = policies;
+        this.serviceTimeEstimator = serviceTimeEstimator;
+    }
+
+    @PostConstruct
+    void load() {
+        policy = policies.stream()
+                .filter(candidate -> candidate.getName().equals(policyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown queue policy " + policyName));
+        orderRepository.findAllByStatusIn(QUEUE_STATUSES).forEach(order -> update(order.getUserId(), modelMapper.fromOrderToOrderDto(order)));
+    }
+
+    public static boolean isQueued(OrderStatus status) {
+        return status != null && QUEUE_STATUSES.contains(status);
+    }
+
+    public static boolean isWaiting(OrderStatus status) {
+        return status == OrderStatus.QUEUED || status == OrderStatus.CASH_PAID;
+    }
+
+    public static boolean isPourable(OrderStatus status) {
+        return isWaiting(status) || status == OrderStatus.INPROGRESS;
+    }
+
+    public String getPolicyName() {
+        return policy.getName();
+    }
+
+    public QueueEventType update(Long userId, OrderDto orderDto) {
+        lock.writeLock().lock();
+        try {
+            OrderDto previous = detach(orderDto.getId());
+            if (!isQueued(orderDto.getStatus()))
+                return previous == null ? null : QueueEventType.ORDER_REMOVED;
+            QueueKey key = new QueueKey(policy.score(orderDto), orderDto.getStartedTime(), orderDto.getId(), userId,
+                    isPourable(orderDto.getStatus()) ? ServiceTimeEstimator.work(orderDto, true) : new double[ServiceTimeEstimator.DIMENSIONS]);
+            tree.add(key);
+            changedFrom = Math.min(changedFrom, tree.rank(key));
+            keys.put(orderDto.getId(), key);
+            orders.put(orderDto.getId(), orderDto);
+            if (isPourable(orderDto.getStatus())) {
+                depth++;
+                pourBatches.add(orderDto);
+                pendingStations(orderDto).forEach(station -> stations.computeIfAbsent(station, type -> new TreeSet<>()).add(key));
+            }
+            if (userId != null)
+                userOrders.computeIfAbsent(userId, user -> new HashSet<>()).add(orderDto.getId());
+            if (previous == null)
+                return QueueEventType.ORDER_QUEUED;
+            return orderDto.getStatus() == OrderStatus.COMPLETED ? QueueEventType.ORDER_COMPLETED : QueueEventType.STATUS_CHANGED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<OrderDto> remove(Long orderId) {
+        lock.writeLock().lock();
+        try {
+            return Optional.ofNullable(detach(orderId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<OrderDto> getOrders() {
+        lock.readLock().lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            double[] work = new double[ServiceTimeEstimator.DIMENSIONS];
+            List<OrderDto> queue = new ArrayList<>(tree.size());
+            for (QueueKey key : tree.toList()) {
+                OrderDto order = orders.get(key.id);
+                if (isPourable(order.getStatus())) {
+                    for (int i = 0; i < work.length; i++)
+                        work[i] += key.work[i];
+                    order = order.toBuilder().estimatedCompleteTime(estimatedCompleteTime(now, work)).build();
+                }
+                queue.add(order);
+            }
+            return queue;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<OrderDto> getOrder(Long orderId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(orders.get(orderId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<LocalDateTime> getEstimatedCompleteTime(Long orderId) {
+        lock.readLock().lock();
+        try {
+            QueueKey key = keys.get(orderId);
+            if (key == null || !isPourable(orders.get(orderId).getStatus()))
+                return Optional.empty();
+            double[] work = tree.prefixSum(key);
+            for (int i = 0; i < work.length; i++)
+                work[i] += key.work[i];
+            return Optional.of(estimatedCompleteTime(LocalDateTime.now(), work));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PourBatchPayload> getPourBatches() {
+        lock.readLock().lock();
+        try {
+            return pourBatches.batches(batchWindowSeconds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<StationOrderPayload> getStationOrders(ProductTypes station) {
+        lock.readLock().lock();
+        try {
+            return stations.getOrDefault(station, new TreeSet<>()).stream()
+                    .map(key -> orders.get(key.id))
+                    .map(order -> {
+                        List<OrderItemDto> items = order.getOrderItemsDto().stream().filter(item -> stationOf(item) == station).collect(Collectors.toList());
+                        return StationOrderPayload.builder()
+                                .orderId(order.getId())
+                                .status(items.stream().anyMatch(item -> item.getStartedTime() != null) ? StationStatus.IN_PROGRESS : StationStatus.WAITING)
+                                .startedTime(order.getStartedTime())
+                                .orderItemsDto(items)
+                                .build();
+                    })
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<Integer> getPosition(Long orderId) {
+        lock.readLock().lock();
+        try {
+            QueueKey key = keys.get(orderId);
+            return key == null ? Optional.empty() : Optional.of(tree.rank(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Positions of the given users' orders ranked at or after the first position an order was added to or removed from
+     * since the previous call, grouped by user. Orders ahead of every such change kept their position and are left out.
+     */
+    public Map<Long, Map<Long, Integer>> takeChangedPositions(Set<Long> userIds) {
+        lock.writeLock().lock();
+        try {
+            int from = changedFrom;
+            changedFrom = Integer.MAX_VALUE;
+            Map<Long, Map<Long, Integer>> positions = new HashMap<>();
+            if (userIds.isEmpty() || from >= tree.size())
+                return positions;
+            List<QueueKey> changed = tree.tail(from);
+            for (int i = 0; i < changed.size(); i++) {
+                QueueKey key = changed.get(i);
+                if (key.userId != null && userIds.contains(key.userId))
+                    positions.computeIfAbsent(key.userId, user -> new LinkedHashMap<>()).put(key.id, from + i);
+            }
+            return positions;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> getUserOrderIds(Long userId) {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(userOrders.getOrDefault(userId, Collections.emptySet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of orders still waiting or being poured, i.e. the queue a new order would have to wait behind.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Estimated seconds until the first {@code orders} orders still to be poured are done.
+     */
+    public double getDrainSeconds(int orders) {
+        lock.readLock().lock();
+        try {
+            double[] work = new double[ServiceTimeEstimator.DIMENSIONS];
+            int counted = 0;
+            for (QueueKey key : tree.toList()) {
+                if (counted == orders)
+                    break;
+                if (!isPourable(this.orders.get(key.id).getStatus()))
+                    continue;
+                for (int i = 0; i < work.length; i++)
+                    work[i] += key.work[i];
+                counted++;
+            }
+            return serviceTimeEstimator.estimateQueue(work);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private OrderDto detach(Long orderId) {
+        QueueKey previous = keys.remove(orderId);
+        if (previous == null)
+            return null;
+        changedFrom = Math.min(changedFrom, tree.rank(previous));
+        tree.remove(previous);
+        OrderDto previousDto = orders.remove(orderId);
+        if (isPourable(previousDto.getStatus())) {
+            depth--;
+            pourBatches.remove(previousDto);
+            pendingStations(previousDto).forEach(station -> stations.computeIfPresent(station, (type, queued) -> {
+                queued.remove(previous);
+                return queued.isEmpty() ? null : queued;
+            }));
+        }
+        if (previous.userId != null)
+            userOrders.computeIfPresent(previous.userId, (user, ids) -> {
+                ids.remove(orderId);
+                return ids.isEmpty() ? null : ids;
+            });
+        return previousDto;
+    }
+
+    private LocalDateTime estimatedCompleteTime(LocalDateTime now, double[] work) {
+        return now.plusNanos((long) (serviceTimeEstimator.estimateQueue(work) * 1e9));
+    }
+
+    private static Set<ProductTypes> pendingStations(OrderDto order) {
+        if (order.getOrderItemsDto() == null)
+            return Collections.emptySet();
+        return order.getOrderItemsDto().stream()
+                .filter(item -> !item.isPoured() && stationOf(item) != null)
+                .map(OrderQueue::stationOf)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(ProductTypes.class)));
+    }
+
+    private static ProductTypes stationOf(OrderItemDto item) {
+        return item.getProductDto() == null ? null : item.getProductDto().getProductType();
+    }
+
+    private static class QueueKey implements Comparable<QueueKey> {
+        private static final Comparator<QueueKey> ORDER = Comparator
+                .comparingDouble((QueueKey key) -> key.score)
+                .thenComparing(key -> key.startedTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(key -> key.id);
+
+        private final double score;
+        private final LocalDateTime startedTime;
+        private final Long id;
+        private final Long userId;
+        private final double[] work;
+
+        private QueueKey(double score, LocalDateTime startedTime, Long id, Long userId, double[] work) {
+            this.work = work;
+            this.score = score;
+            this.startedTime = startedTime;
+            this.id = id;
+            this.userId = userId;
+        }
+
+        @Override
+        public int compareTo(QueueKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
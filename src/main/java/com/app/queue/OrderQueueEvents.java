@@ -0,0 +1,169 @@
+package com.app.queue;
+
+import com.app.model.dto.OrderDto;
+import com.app.payloads.responses.QueuePositionPayload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class OrderQueueEvents {
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<Long, List<Subscriber>> userSubscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> sentPositions = new HashMap<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+    private final ExecutorService senders = Executors.newCachedThreadPool();
+
+    @Value("${queue.stream.timeout:1800000}")
+    private Long timeout;
+    @Value("${queue.stream.buffer:32}")
+    private int buffer;
+
+    private OrderQueue orderQueue;
+
+    public OrderQueueEvents(OrderQueue orderQueue) {
+        this.orderQueue = orderQueue;
+    }
+
+    public SseEmitter subscribe() {
+        Subscriber subscriber = new Subscriber();
+        subscriber.onClose(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        dispatcher.execute(() -> subscriber.send(QueueEventType.SNAPSHOT, orderQueue.getOrders()));
+        return subscriber.emitter;
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        Subscriber subscriber = new Subscriber();
+        subscriber.onClose(() -> userSubscribers.computeIfPresent(userId, (user, current) -> {
+            current.remove(subscriber);
+            return current.isEmpty() ? null : current;
+        }));
+        userSubscribers.compute(userId, (user, current) -> {
+            List<Subscriber> list = current == null ? new CopyOnWriteArrayList<>() : current;
+            list.add(subscriber);
+            return list;
+        });
+        dispatcher.execute(() -> orderQueue.getUserOrderIds(userId).forEach(orderId -> orderQueue.getPosition(orderId).ifPresent(position -> {
+            sentPositions.put(orderId, position);
+            subscriber.send(QueueEventType.POSITION_CHANGED, positionPayload(orderId, position));
+        })));
+        return subscriber.emitter;
+    }
+
+    public void publish(QueueEventType type, Long userId, OrderDto orderDto) {
+        dispatcher.execute(() -> {
+            subscribers.forEach(subscriber -> subscriber.send(type, orderDto));
+            List<Subscriber> owners = userId == null ? null : userSubscribers.get(userId);
+            if (owners != null)
+                owners.forEach(subscriber -> subscriber.send(type, QueuePositionPayload.builder().orderId(orderDto.getId()).status(orderDto.getStatus()).build()));
+            if (type == QueueEventType.ORDER_REMOVED)
+                sentPositions.remove(orderDto.getId());
+            publishPositions();
+        });
+    }
+
+    private void publishPositions() {
+        orderQueue.takeChangedPositions(userSubscribers.keySet()).forEach((userId, positions) -> {
+            List<Subscriber> owners = userSubscribers.get(userId);
+            if (owners == null)
+                return;
+            positions.forEach((orderId, position) -> {
+                if (Objects.equals(sentPositions.put(orderId, position), position))
+                    return;
+                QueuePositionPayload payload = positionPayload(orderId, position);
+                owners.forEach(subscriber -> subscriber.send(QueueEventType.POSITION_CHANGED, payload));
+            });
+        });
+    }
+
+    private QueuePositionPayload positionPayload(Long orderId, Integer position) {
+        return QueuePositionPayload.builder()
+                .orderId(orderId)
+                .position(position)
+                .estimatedCompleteTime(orderQueue.getEstimatedCompleteTime(orderId).orElse(null))
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        userSubscribers.values().forEach(owners -> owners.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * One stream and its own bounded backlog of events. Events are written on the sender pool, so a client that reads
+     * slowly only holds up itself; once its backlog is full it is dropped instead of buffering without limit.
+     */
+    private class Subscriber {
+        private final SseEmitter emitter = new SseEmitter(timeout);
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(buffer);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean dropped;
+        private Runnable unregister = () -> { };
+
+        void onClose(Runnable unregister) {
+            this.unregister = unregister;
+            emitter.onCompletion(unregister);
+            emitter.onTimeout(unregister);
+            emitter.onError(error -> unregister.run());
+        }
+
+        void send(QueueEventType type, Object data) {
+            if (dropped)
+                return;
+            if (!pending.offer(SseEmitter.event().name(type.name()).data(data, MediaType.APPLICATION_JSON)))
+                drop();
+            schedule();
+        }
+
+        private void drop() {
+            dropped = true;
+            unregister.run();
+            pending.clear();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true))
+                senders.execute(this::drain);
+        }
+
+        private void drain() {
+            boolean open = true;
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!dropped && (event = pending.poll()) != null)
+                    emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                drop();
+                open = false;
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            if (dropped) {
+                if (open)
+                    emitter.complete();
+            } else if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.app.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+class OrderStatisticTree<K extends Comparable<? super K>> {
+    private final Random random = new Random();
+    private final int dimensions;
+    private final Function<K, double[]> weights;
+    private Node<K> root;
+
+    OrderStatisticTree() {
+        this(0, key -> new double[0]);
+    }
+
+    OrderStatisticTree(int dimensions, Function<K, double[]> weights) {
+        this.dimensions = dimensions;
+        this.weights = weights;
+    }
+
+    private static class Node<K> {
+        private final K key;
+        private final int priority;
+        private final double[] weight;
+        private final double[] sum;
+        private int size = 1;
+        private Node<K> left;
+        private Node<K> right;
+
+        private Node(K key, int priority, double[] weight) {
+            this.key = key;
+            this.priority = priority;
+            this.weight = weight;
+            this.sum = weight.clone();
+        }
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    void add(K key) {
+        root = insert(root, key);
+    }
+
+    void remove(K key) {
+        root = delete(root, key);
+    }
+
+    int rank(K key) {
+        int rank = 0;
+        Node<K> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp == 0) {
+                return rank + size(node.left);
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    double[] prefixSum(K key) {
+        double[] sum = new double[dimensions];
+        Node<K> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                add(sum, node.left == null ? null : node.left.sum);
+                add(sum, node.weight);
+                node = node.right;
+            }
+        }
+        return sum;
+    }
+
+    List<K> toList() {
+        List<K> keys = new ArrayList<>(size());
+        collect(root, keys);
+        return keys;
+    }
+
+    /**
+     * Keys ranked {@code from} or later, in order; subtrees entirely ahead of {@code from} are skipped by size.
+     */
+    List<K> tail(int from) {
+        List<K> keys = new ArrayList<>(Math.max(size() - from, 0));
+        collect(root, from, keys);
+        return keys;
+    }
+
+    private void collect(Node<K> node, List<K> keys) {
+        if (node == null)
+            return;
+        collect(node.left, keys);
+        keys.add(node.key);
+        collect(node.right, keys);
+    }
+
+    private void collect(Node<K> node, int skip, List<K> keys) {
+        if (node == null)
+            return;
+        int left = size(node.left);
+        if (skip < left)
+            collect(node.left, skip, keys);
+        if (skip <= left)
+            keys.add(node.key);
+        collect(node.right, Math.max(skip - left - 1, 0), keys);
+    }
+
+    private Node<K> insert(Node<K> node, K key) {
+        if (node == null)
+            return new Node<>(key, random.nextInt(), weights.apply(key));
+        int cmp = key.compareTo(node.key);
+        if (cmp == 0)
+            return node;
+        if (cmp < 0) {
+            node.left = insert(node.left, key);
+            if (node.left.priority > node.priority)
+                node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, key);
+            if (node.right.priority > node.priority)
+                node = rotateLeft(node);
+        }
+        return update(node);
+    }
+
+    private Node<K> delete(Node<K> node, K key) {
+        if (node == null)
+            return null;
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            node.left = delete(node.left, key);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, key);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = delete(node.right, key);
+        } else {
+            node = rotateLeft(node);
+            node.left = delete(node.left, key);
+        }
+        return update(node);
+    }
+
+    private Node<K> rotateRight(Node<K> node) {
+        Node<K> left = node.left;
+        node.left = left.right;
+        left.right = update(node);
+        return update(left);
+    }
+
+    private Node<K> rotateLeft(Node<K> node) {
+        Node<K> right = node.right;
+        node.right = right.left;
+        right.left = update(node);
+        return update(right);
+    }
+
+    private Node<K> update(Node<K> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        System.arraycopy(node.weight, 0, node.sum, 0, dimensions);
+        add(node.sum, node.left == null ? null : node.left.sum);
+        add(node.sum, node.right == null ? null : node.right.sum);
+        return node;
+    }
+
+    private static void add(double[] target, double[] values) {
+        if (values == null)
+            return;
+        for (int i = 0; i < target.length; i++)
+            target[i] += values[i];
+    }
+
+    private int size(Node<K> node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,88 @@
+package com.app.queue;
+
+import com.app.model.dto.OrderDto;
+import com.app.model.dto.OrderItemDto;
+import com.app.model.dto.ProductDto;
+import com.app.payloads.responses.PourBatchPayload;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+class PourBatchIndex {
+    private final Map<Long, TreeMap<BatchKey, Integer>> pending = new HashMap<>();
+    private final Map<Long, ProductDto> products = new HashMap<>();
+
+    void add(OrderDto order) {
+        forEachPendingItem(order, (key, item) -> {
+            products.put(item.getProductDto().getId(), item.getProductDto());
+            pending.computeIfAbsent(item.getProductDto().getId(), product -> new TreeMap<>()).merge(key, item.getQuantity(), Integer::sum);
+        });
+    }
+
+    void remove(OrderDto order) {
+        forEachPendingItem(order, (key, item) -> pending.computeIfPresent(item.getProductDto().getId(), (productId, orders) -> {
+            orders.remove(key);
+            if (!orders.isEmpty())
+                return orders;
+            products.remove(productId);
+            return null;
+        }));
+    }
+
+    List<PourBatchPayload> batches(long windowSeconds) {
+        List<PourBatchPayload> batches = new ArrayList<>();
+        pending.forEach((productId, orders) -> {
+            LocalDateTime oldest = orders.firstKey().startedTime;
+            LocalDateTime limit = oldest == null ? null : oldest.plusSeconds(windowSeconds);
+            List<Long> orderIds = new ArrayList<>();
+            int quantity = 0;
+            for (Map.Entry<BatchKey, Integer> entry : orders.entrySet()) {
+                if (limit != null && entry.getKey().startedTime.isAfter(limit))
+                    break;
+                orderIds.add(entry.getKey().orderId);
+                quantity += entry.getValue();
+            }
+            ProductDto product = products.get(productId);
+            batches.add(PourBatchPayload.builder()
+                    .productId(productId)
+                    .brand(product.getBrand())
+                    .productType(product.getProductType())
+                    .quantity(quantity)
+                    .oldestStartedTime(oldest)
+                    .orderIds(orderIds)
+                    .build());
+        });
+        batches.sort(Comparator.comparing(PourBatchPayload::getOldestStartedTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(PourBatchPayload::getProductId));
+        return batches;
+    }
+
+    private void forEachPendingItem(OrderDto order, BiConsumer<BatchKey, OrderItemDto> action) {
+        if (order.getOrderItemsDto() == null)
+            return;
+        BatchKey key = new BatchKey(order.getStartedTime(), order.getId());
+        order.getOrderItemsDto().stream()
+                .filter(item -> !item.isPoured() && item.getProductDto() != null && item.getQuantity() != null)
+                .forEach(item -> action.accept(key, item));
+    }
+
+    private static class BatchKey implements Comparable<BatchKey> {
+        private static final Comparator<BatchKey> ORDER = Comparator
+                .comparing((BatchKey key) -> key.startedTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(key -> key.orderId);
+
+        private final LocalDateTime startedTime;
+        private final Long orderId;
+
+        private BatchKey(LocalDateTime startedTime, Long orderId) {
+            this.startedTime = startedTime;
+            this.orderId = orderId;
+        }
+
+        @Override
+        public int compareTo(BatchKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
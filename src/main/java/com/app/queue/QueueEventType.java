@@ -0,0 +1,5 @@
+package com.app.queue;
+
+public enum QueueEventType {
+    SNAPSHOT, ORDER_QUEUED, STATUS_CHANGED, ORDER_COMPLETED, ORDER_REMOVED, POSITION_CHANGED
+}
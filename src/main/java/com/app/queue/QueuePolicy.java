@@ -0,0 +1,13 @@
+package com.app.queue;
+
+import com.app.model.dto.OrderDto;
+
+/**
+ * Orders are served by ascending score, then by startedTime and id. The score is computed once,
+ * when the order enters the queue, so it must not depend on the current time.
+ */
+public interface QueuePolicy {
+    String getName();
+
+    double score(OrderDto order);
+}
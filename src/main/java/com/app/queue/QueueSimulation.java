@@ -0,0 +1,97 @@
+package com.app.queue;
+
+import com.app.model.OrderStatus;
+import com.app.model.dto.OrderDto;
+import com.app.model.dto.OrderItemDto;
+import com.app.payloads.responses.QueueSimulationPayload;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+public class QueueSimulation {
+
+    private List<QueuePolicy> policies;
+    private ServiceTimeEstimator serviceTimeEstimator;
+
+    public QueueSimulation(List<QueuePolicy> policies, ServiceTimeEstimator serviceTimeEstimator) {
+        this.policies = policies;
+        this.serviceTimeEstimator = serviceTimeEstimator;
+    }
+
+    public List<QueueSimulationPayload> simulate(List<OrderDto> orders, int servers) {
+        List<OrderDto> arrivals = orders.stream()
+                .filter(order -> order.getStartedTime() != null)
+                .map(this::asWaiting)
+                .sorted(Comparator.comparing(OrderDto::getStartedTime).thenComparing(OrderDto::getId))
+                .collect(Collectors.toList());
+        return policies.stream().map(policy -> simulate(arrivals, policy, Math.max(1, servers))).collect(Collectors.toList());
+    }
+
+    private QueueSimulationPayload simulate(List<OrderDto> arrivals, QueuePolicy policy, int servers) {
+        if (arrivals.isEmpty())
+            return QueueSimulationPayload.builder().policy(policy.getName()).build();
+        LocalDateTime origin = arrivals.get(0).getStartedTime();
+        PriorityQueue<Job> waiting = new PriorityQueue<>(Comparator
+                .comparingDouble((Job job) -> job.score)
+                .thenComparingDouble(job -> job.arrival)
+                .thenComparing(job -> job.id));
+        PriorityQueue<Double> freeAt = new PriorityQueue<>();
+        for (int i = 0; i < servers; i++)
+            freeAt.add(0.0);
+
+        double[] waits = new double[arrivals.size()];
+        int next = 0;
+        for (int served = 0; served < waits.length; served++) {
+            double now = freeAt.poll();
+            if (waiting.isEmpty())
+                now = Math.max(now, seconds(origin, arrivals.get(next)));
+            while (next < arrivals.size() && seconds(origin, arrivals.get(next)) <= now) {
+                OrderDto order = arrivals.get(next++);
+                waiting.add(new Job(order.getId(), seconds(origin, order), policy.score(order), serviceTimeEstimator.estimate(order)));
+            }
+            Job job = waiting.poll();
+            waits[served] = now - job.arrival;
+            freeAt.add(now + job.serviceSeconds);
+        }
+
+        Arrays.sort(waits);
+        return QueueSimulationPayload.builder()
+                .policy(policy.getName())
+                .orders(waits.length)
+                .meanWaitSeconds(Arrays.stream(waits).average().orElse(0))
+                .p95WaitSeconds(waits[(int) Math.ceil(waits.length * 0.95) - 1])
+                .maxWaitSeconds(waits[waits.length - 1])
+                .build();
+    }
+
+    private OrderDto asWaiting(OrderDto order) {
+        return order.toBuilder()
+                .status(OrderQueue.isWaiting(order.getStatus()) ? order.getStatus() : OrderStatus.QUEUED)
+                .orderItemsDto(order.getOrderItemsDto() == null ? null : order.getOrderItemsDto().stream()
+                        .map(item -> OrderItemDto.builder().id(item.getId()).productDto(item.getProductDto()).unitPrice(item.getUnitPrice()).quantity(item.getQuantity()).build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private static double seconds(LocalDateTime origin, OrderDto order) {
+        return Duration.between(origin, order.getStartedTime()).toMillis() / 1000.0;
+    }
+
+    private static class Job {
+        private final Long id;
+        private final double arrival;
+        private final double score;
+        private final double serviceSeconds;
+
+        private Job(Long id, double arrival, double score, double serviceSeconds) {
+            this.id = id;
+            this.arrival = arrival;
+            this.score = score;
+            this.serviceSeconds = serviceSeconds;
+        }
+    }
+}
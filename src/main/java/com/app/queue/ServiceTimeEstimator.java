@@ -0,0 +1,106 @@
+package com.app.queue;
+
+import com.app.model.ProductTypes;
+import com.app.model.dto.OrderDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Seconds per order and per unit of each product type. Every completed order moves the per-unit
+ * averages of its product types towards the observed service time with an exponentially decaying
+ * weight, so the model stays constant in size and each update is O(number of product types).
+ */
+@Component
+public class ServiceTimeEstimator {
+    static final int DIMENSIONS = ProductTypes.values().length + 1;
+    static final int ORDERS = ProductTypes.values().length;
+
+    @Value("${queue.service-seconds.order:20}")
+    private double orderSeconds;
+    @Value("${queue.service-seconds.beer-tap:40}")
+    private double beerTapSeconds;
+    @Value("${queue.service-seconds.beer:10}")
+    private double beerSeconds;
+    @Value("${queue.service-seconds.spicy-wings:90}")
+    private double spicyWingsSeconds;
+    @Value("${queue.service-seconds.peanuts:5}")
+    private double peanutsSeconds;
+    @Value("${queue.eta.alpha:0.2}")
+    private double alpha;
+    @Value("${queue.servers:1}")
+    private int servers;
+
+    private volatile double[] unitSeconds = new double[ProductTypes.values().length];
+    private LocalDateTime lastCompleteTime;
+
+    @PostConstruct
+    void init() {
+        double[] initial = new double[ProductTypes.values().length];
+        initial[ProductTypes.BEER_TAP.ordinal()] = beerTapSeconds;
+        initial[ProductTypes.BEER.ordinal()] = beerSeconds;
+        initial[ProductTypes.SPICY_WINGS.ordinal()] = spicyWingsSeconds;
+        initial[ProductTypes.PEANUTS.ordinal()] = peanutsSeconds;
+        unitSeconds = initial;
+    }
+
+    public double estimate(OrderDto order) {
+        return estimate(work(order, true));
+    }
+
+    public double getUnitSeconds(ProductTypes type) {
+        return unitSeconds[type.ordinal()];
+    }
+
+    double estimate(double[] work) {
+        double[] current = unitSeconds;
+        double seconds = orderSeconds * (work.length > ORDERS ? work[ORDERS] : 1);
+        for (int i = 0; i < current.length; i++)
+            seconds += current[i] * work[i];
+        return seconds;
+    }
+
+    double estimateQueue(double[] work) {
+        return estimate(work) / Math.max(1, servers);
+    }
+
+    public synchronized void observe(OrderDto order) {
+        if (order.getStartedTime() == null || order.getCompleteTime() == null)
+            return;
+        double observed = seconds(order.getStartedTime(), order.getCompleteTime());
+        if (lastCompleteTime != null && lastCompleteTime.isAfter(order.getStartedTime()))
+            observed = Math.min(observed, seconds(lastCompleteTime, order.getCompleteTime()) * Math.max(1, servers));
+        if (lastCompleteTime == null || order.getCompleteTime().isAfter(lastCompleteTime))
+            lastCompleteTime = order.getCompleteTime();
+
+        double[] work = work(order, false);
+        double[] current = unitSeconds;
+        double estimatedUnits = estimate(work) - orderSeconds;
+        if (observed <= 0 || estimatedUnits <= 0)
+            return;
+        double ratio = Math.max(0, observed - orderSeconds) / estimatedUnits;
+        double[] next = current.clone();
+        for (int i = 0; i < next.length; i++)
+            if (work[i] > 0)
+                next[i] += alpha * (current[i] * ratio - current[i]);
+        unitSeconds = next;
+    }
+
+    static double[] work(OrderDto order, boolean pendingOnly) {
+        double[] work = new double[DIMENSIONS];
+        work[ORDERS] = 1;
+        if (order.getOrderItemsDto() != null)
+            order.getOrderItemsDto().stream()
+                    .filter(item -> item.getProductDto() != null && item.getProductDto().getProductType() != null && item.getQuantity() != null)
+                    .filter(item -> !pendingOnly || !item.isPoured())
+                    .forEach(item -> work[item.getProductDto().getProductType().ordinal()] += item.getQuantity());
+        return work;
+    }
+
+    private static double seconds(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / 1000.0;
+    }
+}
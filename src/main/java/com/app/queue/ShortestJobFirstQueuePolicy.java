@@ -0,0 +1,26 @@
+package com.app.queue;
+
+import com.app.model.dto.OrderDto;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ShortestJobFirstQueuePolicy implements QueuePolicy {
+
+    private ServiceTimeEstimator serviceTimeEstimator;
+
+    public ShortestJobFirstQueuePolicy(ServiceTimeEstimator serviceTimeEstimator) {
+        this.serviceTimeEstimator = serviceTimeEstimator;
+    }
+
+    @Override
+    public String getName() {
+        return "sjf";
+    }
+
+    @Override
+    public double score(OrderDto order) {
+        if (!OrderQueue.isWaiting(order.getStatus()))
+            return Double.NEGATIVE_INFINITY;
+        return serviceTimeEstimator.estimate(order);
+    }
+}
@@ -0,0 +1,48 @@
+package com.app.queue;
+
+import com.app.model.ProductTypes;
+import com.app.payloads.responses.StationPayload;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Component
+public class StationStatistics {
+    private final Map<ProductTypes, Counters> counters = new EnumMap<>(ProductTypes.class);
+
+    public StationStatistics() {
+        for (ProductTypes station : ProductTypes.values())
+            counters.put(station, new Counters());
+    }
+
+    public void record(ProductTypes station, double waitSeconds, double latencySeconds) {
+        Counters stationCounters = counters.get(station);
+        synchronized (stationCounters) {
+            stationCounters.completed++;
+            stationCounters.waitSeconds += waitSeconds;
+            stationCounters.latencySeconds += latencySeconds;
+            stationCounters.maxLatencySeconds = Math.max(stationCounters.maxLatencySeconds, latencySeconds);
+        }
+    }
+
+    public StationPayload.StationPayloadBuilder describe(ProductTypes station) {
+        Counters stationCounters = counters.get(station);
+        synchronized (stationCounters) {
+            long completed = stationCounters.completed;
+            return StationPayload.builder()
+                    .station(station)
+                    .completed(completed)
+                    .meanWaitSeconds(completed == 0 ? 0 : stationCounters.waitSeconds / completed)
+                    .meanLatencySeconds(completed == 0 ? 0 : stationCounters.latencySeconds / completed)
+                    .maxLatencySeconds(stationCounters.maxLatencySeconds);
+        }
+    }
+
+    private static class Counters {
+        private long completed;
+        private double waitSeconds;
+        private double latencySeconds;
+        private double maxLatencySeconds;
+    }
+}
@@ -0,0 +1,45 @@
+package com.app.queue;
+
+import com.app.model.OrderStatus;
+import com.app.model.dto.OrderDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+
+/**
+ * Priority grows by one for every second an order waits, on top of a credit of at most
+ * max-credit-seconds for short jobs and wallet payments. Every order ages at the same rate,
+ * so ranking by startedTime minus credit is stable over time, and no order can be overtaken
+ * by one that arrived more than max-credit-seconds after it.
+ */
+@Component
+public class WeightedAgingQueuePolicy implements QueuePolicy {
+
+    @Value("${queue.policy.weighted.max-credit-seconds:600}")
+    private double maxCreditSeconds;
+    @Value("${queue.policy.weighted.reference-seconds:60}")
+    private double referenceSeconds;
+    @Value("${queue.policy.weighted.cash-weight:0.5}")
+    private double cashWeight;
+
+    private ServiceTimeEstimator serviceTimeEstimator;
+
+    public WeightedAgingQueuePolicy(ServiceTimeEstimator serviceTimeEstimator) {
+        this.serviceTimeEstimator = serviceTimeEstimator;
+    }
+
+    @Override
+    public String getName() {
+        return "weighted";
+    }
+
+    @Override
+    public double score(OrderDto order) {
+        if (!OrderQueue.isWaiting(order.getStatus()) || order.getStartedTime() == null)
+            return Double.NEGATIVE_INFINITY;
+        double weight = order.getStatus() == OrderStatus.CASH_PAID ? cashWeight : 1.0;
+        double shortness = referenceSeconds / (referenceSeconds + serviceTimeEstimator.estimate(order));
+        return order.getStartedTime().toEpochSecond(ZoneOffset.UTC) - maxCreditSeconds * weight * shortness;
+    }
+}
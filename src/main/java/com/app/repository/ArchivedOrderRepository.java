@@ -0,0 +1,89 @@
+package com.app.repository;
+
+import com.app.model.ArchivedOrder;
+import com.app.model.OrderStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+     String FETCH_ORDER_ITEMS = "select distinct o from ArchivedOrder o left join fetch o.orderItems i left join fetch i.product p ";
+
+     @Query(FETCH_ORDER_ITEMS)
+     @QueryHints(@QueryHint(name = OrderRepository.PASS_DISTINCT_THROUGH, value = "false"))
+     List<ArchivedOrder> findAllWithItems();
+
+     @Query(FETCH_ORDER_ITEMS + "where o.id = :id")
+     @QueryHints(@QueryHint(name = OrderRepository.PASS_DISTINCT_THROUGH, value = "false"))
+     Optional<ArchivedOrder> findWithItemsById(@Param("id") Long id);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.userId = :userId")
+     @QueryHints(@QueryHint(name = OrderRepository.PASS_DISTINCT_THROUGH, value = "false"))
+     List<ArchivedOrder> findByUserId(@Param("userId") Long userId);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.userId = :id and o.status = :status")
+     @QueryHints(@QueryHint(name = OrderRepository.PASS_DISTINCT_THROUGH, value = "false"))
+     List<ArchivedOrder> findAllByUserIdAndStatus(@Param("id") Long id, @Param("status") OrderStatus status);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.id in :ids")
+     @QueryHints(@QueryHint(name = OrderRepository.PASS_DISTINCT_THROUGH, value = "false"))
+     List<ArchivedOrder> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+     @Query("select o.id as id, o.clientId as clientId from ArchivedOrder o where o.clientId in :clientIds")
+     List<OrderRepository.ClientOrderId> findIdsByClientIdIn(@Param("clientIds") Collection<String> clientIds);
+
+     @Query(value = "select count(*) as orders, coalesce(sum(timestampdiff(SECOND, started_time, complete_time)), 0) as seconds from archived_order"
+             + " where started_time is not null and complete_time is not null", nativeQuery = true)
+     OrderRepository.CompletionTotals sumCompletionTimes();
+
+     String HISTORY_FILTER = "from ArchivedOrder o where o.startedTime is not null"
+             + " and (:userId is null or o.userId = :userId)"
+             + " and (:status is null or o.status = :status)"
+             + " and (:from is null or o.startedTime >= :from)"
+             + " and (:to is null or o.startedTime < :to)";
+     String HISTORY_ORDER = " order by o.startedTime desc, o.id desc";
+
+     @Query("select o.id as id, o.startedTime as startedTime " + HISTORY_FILTER + HISTORY_ORDER)
+     List<OrderRepository.HistoryEntry> findHistoryPageIds(@Param("userId") Long userId,
+                                                           @Param("status") OrderStatus status,
+                                                           @Param("from") LocalDateTime from,
+                                                           @Param("to") LocalDateTime to,
+                                                           Pageable pageable);
+
+     /**
+      * See {@link OrderRepository#findHistoryPageIdsAfter}.
+      */
+     @Query("select o.id as id, o.startedTime as startedTime " + HISTORY_FILTER
+             + " and (o.startedTime < :afterTime or (o.startedTime = :afterTime and o.id < :afterId))" + HISTORY_ORDER)
+     List<OrderRepository.HistoryEntry> findHistoryPageIdsAfter(@Param("userId") Long userId,
+                                                                @Param("status") OrderStatus status,
+                                                                @Param("from") LocalDateTime from,
+                                                                @Param("to") LocalDateTime to,
+                                                                @Param("afterTime") LocalDateTime afterTime,
+                                                                @Param("afterId") Long afterId,
+                                                                Pageable pageable);
+
+     @Transactional
+     @Modifying
+     @Query(value = "insert into archived_order (id, user_id, status, started_time, complete_time, total_price, discount, client_id, archived_time)"
+             + " select id, user_id, status, started_time, complete_time, total_price, discount, client_id, :now from " + OrderRepository.TABLE + " where id in :ids", nativeQuery = true)
+     int copyOrders(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+     @Transactional
+     @Modifying
+     @Query(value = "insert into archived_order_item (id, order_id, product_id, unit_price, quantity, poured, started_time)"
+             + " select id, order_id, product_id, unit_price, quantity, poured, started_time from order_item where order_id in :ids", nativeQuery = true)
+     int copyOrderItems(@Param("ids") Collection<Long> ids);
+}
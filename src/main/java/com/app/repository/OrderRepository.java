@@ -2,16 +2,168 @@ package com.app.repository;
 
 import com.app.model.Order;
 import com.app.model.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-     List<Order> findByUserId(Long userId);
-     List<Order> findAllByUserIdAndStatus(Long id, OrderStatus status);
+     String FETCH_ORDER_ITEMS = "select distinct o from Order o left join fetch o.orderItems i left join fetch i.product p ";
+     String PASS_DISTINCT_THROUGH = "hibernate.query.passDistinctThrough";
+     /**
+      * Physical name of the order table for native SQL. The naming strategy lowercases the quoted {@code `Order`}.
+      */
+     String TABLE = "\"order\"";
 
-     Optional<Order> findByUserIdAndStatus(Long id, OrderStatus status);
+     interface OrderTotal {
+          Long getId();
+
+          Long getVersion();
+
+          Double getTotalPrice();
+     }
+
+     interface ClientOrderId {
+          Long getId();
+
+          String getClientId();
+     }
+
+     interface HistoryEntry {
+          Long getId();
+
+          LocalDateTime getStartedTime();
+     }
+
+     interface CompletionTotals {
+          Long getOrders();
+
+          Long getSeconds();
+     }
+
+     interface ArchivableOrder {
+          Long getId();
+
+          Long getUserId();
+     }
+
+     interface ReservedQuantity {
+          Long getProductId();
+
+          Long getQuantity();
+     }
+
+     @Query(FETCH_ORDER_ITEMS)
+     @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+     List<Order> findAllWithItems();
+
+     @Query(FETCH_ORDER_ITEMS + "where o.id = :id")
+     @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+     Optional<Order> findWithItemsById(@Param("id") Long id);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.user.id = :userId")
+     @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+     List<Order> findByUserId(@Param("userId") Long userId);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.user.id = :id and o.status = :status")
+     @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+     List<Order> findAllByUserIdAndStatus(@Param("id") Long id, @Param("status") OrderStatus status);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.user.id = :id and o.status = :status")
+     @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+     Optional<Order> findByUserIdAndStatus(@Param("id") Long id, @Param("status") OrderStatus status);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.startedTime >= :from and o.startedTime < :to order by o.startedTime, o.id")
+     @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+     List<Order> findAllWithItemsStartedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+     @Query("select o.id as id, o.clientId as clientId from Order o where o.clientId in :clientIds")
+     List<ClientOrderId> findIdsByClientIdIn(@Param("clientIds") Collection<String> clientIds);
+
+     @Query("select o.id as id, o.version as version, o.totalPrice as totalPrice from Order o where o.user.id = :userId and o.status = :status")
+     Optional<OrderTotal> findTotalByUserIdAndStatus(@Param("userId") Long userId, @Param("status") OrderStatus status);
+
+     @Transactional
+     @Modifying
+     @Query("update Order o set o.status = :status, o.startedTime = :startedTime, o.version = o.version + 1 where o.id = :id and o.status = :expected and o.version = :version")
+     int transitionStatus(@Param("id") Long id,
+                          @Param("expected") OrderStatus expected,
+                          @Param("version") Long version,
+                          @Param("status") OrderStatus status,
+                          @Param("startedTime") LocalDateTime startedTime);
+
+     @Query("select o.id from Order o where o.status = :status and o.reservedUntil < :now")
+     List<Long> findExpiredReservationIds(@Param("status") OrderStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+     @Query("select i.product.id as productId, sum(i.quantity) as quantity from OrderItem i where i.order.id in :ids group by i.product.id")
+     List<ReservedQuantity> sumReservedQuantities(@Param("ids") Collection<Long> ids);
+
+     @Transactional
+     @Modifying
+     @Query("delete from OrderItem i where i.order.id in :ids")
+     int deleteItemsByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+     @Transactional
+     @Modifying
+     @Query("delete from Order o where o.id in :ids and o.status = :status and o.reservedUntil < :now")
+     int deleteExpiredReservations(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status, @Param("now") LocalDateTime now);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.id in :ids")
+     @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+     List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+     String HISTORY_FILTER = "from Order o where o.startedTime is not null"
+             + " and (:userId is null or o.user.id = :userId)"
+             + " and (:status is null or o.status = :status)"
+             + " and (:from is null or o.startedTime >= :from)"
+             + " and (:to is null or o.startedTime < :to)";
+     String HISTORY_ORDER = " order by o.startedTime desc, o.id desc";
+
+     @Query("select o.id as id, o.startedTime as startedTime " + HISTORY_FILTER + HISTORY_ORDER)
+     List<HistoryEntry> findHistoryPageIds(@Param("userId") Long userId,
+                                           @Param("status") OrderStatus status,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           Pageable pageable);
+
+     /**
+      * Next page after the cursor. Kept apart from the first page because a nullable cursor in the same query
+      * stops matching anything on H2 once it is bound.
+      */
+     @Query("select o.id as id, o.startedTime as startedTime " + HISTORY_FILTER
+             + " and (o.startedTime < :afterTime or (o.startedTime = :afterTime and o.id < :afterId))" + HISTORY_ORDER)
+     List<HistoryEntry> findHistoryPageIdsAfter(@Param("userId") Long userId,
+                                                @Param("status") OrderStatus status,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                @Param("afterTime") LocalDateTime afterTime,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+     @Query(value = "select count(*) as orders, coalesce(sum(timestampdiff(SECOND, started_time, complete_time)), 0) as seconds from " + TABLE
+             + " where started_time is not null and complete_time is not null", nativeQuery = true)
+     CompletionTotals sumCompletionTimes();
+
+     @Query("select o.id as id, o.userId as userId from Order o where o.status in :statuses and coalesce(o.completeTime, o.startedTime) < :cutoff order by o.id")
+     List<ArchivableOrder> findArchivableOrders(@Param("statuses") Collection<OrderStatus> statuses, @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+     @Transactional
+     @Modifying
+     @Query("delete from Order o where o.id in :ids and o.status in :statuses")
+     int deleteArchivedOrders(@Param("ids") Collection<Long> ids, @Param("statuses") Collection<OrderStatus> statuses);
+
+     @Query(FETCH_ORDER_ITEMS + "where o.status in :statuses order by o.startedTime, o.id")
+     @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+     List<Order> findAllByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
 }
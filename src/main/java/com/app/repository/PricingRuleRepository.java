@@ -0,0 +1,9 @@
+package com.app.repository;
+
+import com.app.model.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+}
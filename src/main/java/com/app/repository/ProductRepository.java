@@ -1,9 +1,92 @@
 package com.app.repository;
 
+import com.app.model.ImageStatus;
 import com.app.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    /**
+     * Flushes first: the update clears the persistence context, which would otherwise drop pending cart changes.
+     * A quantity below one never matches, so neither method can be turned around to move stock the other way.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity - :quantity, p.version = p.version + 1 where p.id = :id and :quantity > 0 and p.quantity >= :quantity")
+    int reserveQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity + :quantity, p.version = p.version + 1 where p.id = :id and :quantity > 0")
+    int releaseQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("select case when count(i) > 0 then true else false end from OrderItem i where i.product.id = :id")
+    boolean isInLiveOrders(@Param("id") Long id);
+
+    @Query("select p.imgUrl from Product p where p.id = :id and p.pendingImage = :token")
+    Optional<String> findImgUrlByPendingImage(@Param("id") Long id, @Param("token") String token);
+
+    /**
+     * Settles the image upload identified by {@code token}; does nothing once a newer upload or a delete replaced it.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.imgUrl = :imgUrl, p.imageStatus = :status, p.pendingImage = null, p.version = p.version + 1 where p.id = :id and p.pendingImage = :token")
+    int finishPendingImage(@Param("id") Long id, @Param("token") String token, @Param("imgUrl") String imgUrl, @Param("status") ImageStatus status);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.imageStatus = :status, p.pendingImage = null, p.version = p.version + 1 where p.id = :id and p.pendingImage = :token")
+    int failPendingImage(@Param("id") Long id, @Param("token") String token, @Param("status") ImageStatus status);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.imageStatus = :failed, p.pendingImage = null, p.version = p.version + 1 where p.imageStatus = :pending")
+    int failAbandonedImages(@Param("pending") ImageStatus pending, @Param("failed") ImageStatus failed);
+
+    String FILTER_PRODUCTS = "from Product p where (:type is null or p.productType = :type)"
+            + " and (:minPrice is null or p.price >= :minPrice)"
+            + " and (:maxPrice is null or p.price <= :maxPrice)"
+            + " and (:inStock = false or p.quantity > 0)";
+
+    @Query(value = "select p.id as id, p.version as version, p.description as description, p.imgUrl as imgUrl, p.brand as brand,"
+            + " p.price as price, p.quantity as quantity, p.minimalPrice as minimalPrice, p.productType as productType,"
+            + " p.imageStatus as imageStatus " + FILTER_PRODUCTS,
+            countQuery = "select count(p.id) " + FILTER_PRODUCTS)
+    Page<ProductSummary> findSummaries(@Param("type") String type,
+                                       @Param("minPrice") Double minPrice,
+                                       @Param("maxPrice") Double maxPrice,
+                                       @Param("inStock") boolean inStock,
+                                       Pageable pageable);
+
+    interface ProductSummary {
+        Long getId();
+
+        Long getVersion();
+
+        String getDescription();
+
+        String getImgUrl();
+
+        String getBrand();
+
+        Double getPrice();
+
+        Integer getQuantity();
+
+        Double getMinimalPrice();
+
+        String getProductType();
+
+        ImageStatus getImageStatus();
+    }
 }
@@ -2,8 +2,23 @@ package com.app.repository;
 
 import com.app.model.Report;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ReportRepository  extends JpaRepository<Report, Long> {
+
+    /**
+     * Closed reports are never changed or deleted, so their count and the highest id identify the whole set.
+     */
+    @Query("select count(r.id) as total, max(r.id) as lastId from Report r where r.end is not null")
+    ClosedReports findClosedReports();
+
+    boolean existsByIdAndEndIsNotNull(Long id);
+
+    interface ClosedReports {
+        long getTotal();
+
+        Long getLastId();
+    }
 }
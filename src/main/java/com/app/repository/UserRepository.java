@@ -3,7 +3,11 @@ package com.app.repository;
 import com.app.model.Role;
 import com.app.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,4 +17,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<Boolean> existsUserByEmail(String email);
     List<User> findAllByRolesIsContaining(Role role);
+
+    @Transactional
+    @Modifying
+    @Query("update user u set u.balance = u.balance - :amount, u.version = u.version + 1 where u.id = :id and u.balance >= :amount")
+    int debitBalance(@Param("id") Long id, @Param("amount") Double amount);
+
+    @Transactional
+    @Modifying
+    @Query("update user u set u.balance = u.balance + :amount, u.version = u.version + 1 where u.id = :id")
+    int creditBalance(@Param("id") Long id, @Param("amount") Double amount);
 }
@@ -0,0 +1,20 @@
+package com.app.schedulers;
+
+import com.app.service.CartReservationService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CartReservationScheduler {
+
+    private CartReservationService cartReservationService;
+
+    public CartReservationScheduler(CartReservationService cartReservationService) {
+        this.cartReservationService = cartReservationService;
+    }
+
+    @Scheduled(fixedDelayString = "${order.reservation.sweep-millis:60000}")
+    public void releaseExpiredReservations() {
+        cartReservationService.releaseExpiredReservations();
+    }
+}
@@ -0,0 +1,20 @@
+package com.app.schedulers;
+
+import com.app.service.OrderArchiveService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OrderArchiveScheduler {
+
+    private OrderArchiveService orderArchiveService;
+
+    public OrderArchiveScheduler(OrderArchiveService orderArchiveService) {
+        this.orderArchiveService = orderArchiveService;
+    }
+
+    @Scheduled(fixedDelayString = "${order.archive.sweep-millis:3600000}")
+    public void archiveClosedOrders() {
+        orderArchiveService.archiveClosedOrders();
+    }
+}
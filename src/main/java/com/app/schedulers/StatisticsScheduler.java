@@ -54,8 +54,7 @@ public class StatisticsScheduler {
                     } else if (previousBeers.get(i).getQuantity() - beerlist.get(i).getQuantity() < 10 && beerlist.get(i).getMinimalPrice() < beerlist.get(i).getPrice()) {
                         beerlist.get(i).setPrice(beerlist.get(i).getPrice() - 1);
                     }
-                    Product product = modelMapper.fromProductDtoToProduct(beerlist.get(i));
-                    productRepository.save(product);
+                    productService.changePrice(beerlist.get(i).getId(), beerlist.get(i).getPrice());
 
             }
 
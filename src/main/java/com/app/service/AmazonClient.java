@@ -1,26 +1,39 @@
 package com.app.service;
 
 import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
-import java.io.File;
-import java.io.FileOutputStream;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.Date;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
 
+/**
+ * Streams uploads from the multipart input straight to the bucket. The SDK only keeps a bounded mark/reset buffer
+ * per request, files above the multipart threshold go up part by part, and nothing touches the local disk.
+ * Pointing {@code endpointUrl} at a local S3-compatible server is enough to run against a fake.
+ */
 @Service
 public class AmazonClient {
 
     private AmazonS3 s3client;
+    private TransferManager transferManager;
 
     @Value("${endpointUrl}")
     private String endpointUrl;
@@ -30,47 +43,75 @@ public class AmazonClient {
     private String accessKey;
     @Value("${secretKey}")
     private String secretKey;
+    @Value("${cloud.aws.region.static:eu-central-1}")
+    private String region;
+    @Value("${s3.upload.multipart-threshold-bytes:16777216}")
+    private long multipartThreshold;
+    @Value("${s3.upload.part-size-bytes:5242880}")
+    private long partSize;
+    @Value("${s3.upload.read-limit-bytes:131073}")
+    private int readLimit;
 
     @PostConstruct
     private void initializeAmazon() {
         AWSCredentials credentials = new BasicAWSCredentials(this.accessKey, this.secretKey);
-        this.s3client = new AmazonS3Client(credentials);
+        this.s3client = AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(credentials))
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUrl, region))
+                .withPathStyleAccessEnabled(true)
+                .build();
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(s3client)
+                .withMultipartUploadThreshold(multipartThreshold)
+                .withMinimumUploadPartSize(partSize)
+                .build();
     }
 
-    private File convertMultiPartToFile(MultipartFile file) throws IOException {
-        File convFile = new File(file.getOriginalFilename());
-        FileOutputStream fos = new FileOutputStream(convFile);
-        fos.write(file.getBytes());
-        fos.close();
-        return convFile;
+    @PreDestroy
+    private void shutdown() {
+        transferManager.shutdownNow(true);
     }
 
-    private String generateFileName(MultipartFile multiPart) {
-        return new Date().getTime() + "-" + multiPart.getOriginalFilename().replace(" ", "_");
+    private String generateFileName(String originalFilename) {
+        String name = originalFilename == null ? "" : originalFilename.substring(Math.max(originalFilename.lastIndexOf('/'), originalFilename.lastIndexOf('\\')) + 1);
+        return UUID.randomUUID() + "-" + name.replaceAll("[^A-Za-z0-9._-]", "_");
     }
 
-    private void uploadFileTos3bucket(String fileName, File file) {
-        s3client.putObject(new PutObjectRequest(bucketName, fileName, file)
-                .withCannedAcl(CannedAccessControlList.PublicRead));
+    private void uploadStreamTos3bucket(String fileName, InputStream input, long contentLength, String contentType) throws InterruptedException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        metadata.setContentType(contentType);
+        PutObjectRequest request = new PutObjectRequest(bucketName, fileName, input, metadata)
+                .withCannedAcl(CannedAccessControlList.PublicRead);
+        request.getRequestClientOptions().setReadLimit(readLimit);
+        transferManager.upload(request).waitForCompletion();
     }
 
+    /**
+     * Uploads the file and returns its public URL. Failures are thrown rather than answered with a URL that
+     * points at nothing.
+     */
     public String uploadFile(MultipartFile multipartFile) {
+        try (InputStream input = multipartFile.getInputStream()) {
+            return uploadFile(multipartFile.getOriginalFilename(), multipartFile.getContentType(), multipartFile.getSize(), input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        String fileUrl = "";
+    public String uploadFile(String originalFilename, String contentType, long contentLength, InputStream input) {
+        String fileName = generateFileName(originalFilename);
         try {
-            File file = convertMultiPartToFile(multipartFile);
-            String fileName = generateFileName(multipartFile);
-            fileUrl = endpointUrl + "/" + bucketName + "/" + fileName;
-            uploadFileTos3bucket(fileName, file);
-            file.delete();
-        } catch (Exception e) {
-            e.printStackTrace();
+            uploadStreamTos3bucket(fileName, input, contentLength, contentType);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Upload of " + fileName + " interrupted"));
         }
-        return fileUrl;
+        return endpointUrl + "/" + bucketName + "/" + fileName;
     }
 
     public void deleteFileFromS3Bucket(String fileUrl) {
         String fileName = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
         s3client.deleteObject(new DeleteObjectRequest(bucketName, fileName));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.app.service;
+
+import com.app.model.OrderStatus;
+import com.app.payloads.responses.ReservationSweepPayload;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import com.app.utils.ConcurrencyRetry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class CartReservationService {
+    private final AtomicLong totalReleasedCarts = new AtomicLong();
+    private final AtomicLong totalReleasedUnits = new AtomicLong();
+    private volatile ReservationSweepPayload lastSweep = new ReservationSweepPayload();
+
+    @Value("${order.reservation.sweep-batch-size:500}")
+    private int batchSize;
+
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private ProductCatalog productCatalog;
+    private ConcurrencyRetry concurrencyRetry;
+    private TransactionTemplate transactionTemplate;
+
+    public CartReservationService(OrderRepository orderRepository, ProductRepository productRepository, ProductCatalog productCatalog, ConcurrencyRetry concurrencyRetry, PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.productCatalog = productCatalog;
+        this.concurrencyRetry = concurrencyRetry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ReservationSweepPayload releaseExpiredReservations() {
+        long begin = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        int carts = 0;
+        long units = 0;
+        Released released;
+        do {
+            released = concurrencyRetry.execute("cart.release", () -> transactionTemplate.execute(status -> releaseBatch(now)));
+            carts += released.carts;
+            units += released.units;
+        } while (released.carts == batchSize);
+
+        lastSweep = ReservationSweepPayload.builder()
+                .lastSweep(now)
+                .lastSweepMillis(System.currentTimeMillis() - begin)
+                .lastReleasedCarts(carts)
+                .lastReleasedUnits(units)
+                .totalReleasedCarts(totalReleasedCarts.addAndGet(carts))
+                .totalReleasedUnits(totalReleasedUnits.addAndGet(units))
+                .build();
+        return lastSweep;
+    }
+
+    public ReservationSweepPayload getLastSweep() {
+        return lastSweep;
+    }
+
+    private Released releaseBatch(LocalDateTime now) {
+        List<Long> ids = orderRepository.findExpiredReservationIds(OrderStatus.NOT_PAID, now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty())
+            return new Released(0, 0);
+        List<OrderRepository.ReservedQuantity> quantities = orderRepository.sumReservedQuantities(ids);
+        orderRepository.deleteItemsByOrderIdIn(ids);
+        if (orderRepository.deleteExpiredReservations(ids, OrderStatus.NOT_PAID, now) != ids.size())
+            throw new OptimisticLockingFailureException("Cart changed while its reservation was released");
+        quantities.forEach(quantity -> productRepository.releaseQuantity(quantity.getProductId(), quantity.getQuantity().intValue()));
+        productCatalog.invalidate();
+        return new Released(ids.size(), quantities.stream().mapToLong(OrderRepository.ReservedQuantity::getQuantity).sum());
+    }
+
+    private static class Released {
+        private final int carts;
+        private final long units;
+
+        private Released(int carts, long units) {
+            this.carts = carts;
+            this.units = units;
+        }
+    }
+}
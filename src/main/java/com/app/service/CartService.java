@@ -0,0 +1,195 @@
+package com.app.service;
+
+import com.app.exception.InvalidQuantityException;
+import com.app.exception.NotEnoughProductQuantityException;
+import com.app.exception.ResourceNotFoundException;
+import com.app.model.Order;
+import com.app.model.OrderItem;
+import com.app.model.OrderStatus;
+import com.app.model.Product;
+import com.app.model.dto.OrderDto;
+import com.app.model.modelMappers.ModelMapper;
+import com.app.payloads.requests.AddProductToOrderPayload;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import com.app.utils.ConcurrencyRetry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Changes to a user's NOT_PAID order. Every change reserves or releases stock in the same transaction and pushes
+ * the reservation deadline out again.
+ */
+@Service
+public class CartService {
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private UserRepository userRepository;
+    private ModelMapper modelMapper;
+    private ProductCatalog productCatalog;
+    private ConcurrencyRetry concurrencyRetry;
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${order.reservation.ttl-minutes:30}")
+    private long reservationTtlMinutes;
+
+    public CartService(OrderRepository orderRepository, ProductRepository productRepository, UserRepository userRepository, ModelMapper modelMapper, ProductCatalog productCatalog, ConcurrencyRetry concurrencyRetry, PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.modelMapper = modelMapper;
+        this.productCatalog = productCatalog;
+        this.concurrencyRetry = concurrencyRetry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public OrderDto getNotPaidUserOrder(Long id) {
+        return modelMapper.fromOrderToOrderDto(orderRepository.findByUserIdAndStatus(id, OrderStatus.NOT_PAID).orElseGet(() -> createEmptyOrder(id)));
+    }
+
+    public OrderDto deleteProductFromOrder(Long orderId, Long productId) {
+        return inTransaction("cart.remove", () -> removeFromCart(orderId, productId));
+    }
+
+    public OrderDto order(Long id, AddProductToOrderPayload addProductToOrderPayload) {
+        return inTransaction("cart.add", () -> addToCart(id, addProductToOrderPayload));
+    }
+
+    public OrderDto changeOrder(Long id, List<AddProductToOrderPayload> lines) {
+        return inTransaction("cart.change", () -> changeCart(id, lines));
+    }
+
+    public OrderDto reduceQuantity(Long userId, Long orderId, AddProductToOrderPayload addProductToOrderPayload) {
+        return inTransaction("cart.reduce", () -> reduceCart(userId, orderId, addProductToOrderPayload));
+    }
+
+    private OrderDto removeFromCart(Long orderId, Long productId) {
+        Order order = orderRepository.findWithItemsById(orderId).orElseThrow(NullPointerException::new);
+
+        OrderItem orderItem = order.getOrderItems().stream().filter(x -> x.getProduct().getId().equals(productId)).findFirst().get();
+
+        order.getOrderItems().remove(orderItem);
+        updateCart(order);
+
+        order = orderRepository.save(order);
+        productRepository.releaseQuantity(productId, orderItem.getQuantity());
+        productCatalog.invalidate();
+
+        return modelMapper.fromOrderToOrderDto(order);
+    }
+
+    private OrderDto addToCart(Long id, AddProductToOrderPayload addProductToOrderPayload) {
+        Long productId = addProductToOrderPayload.getProductId();
+        if (addProductToOrderPayload.getQuantity() <= 0)
+            throw new InvalidQuantityException();
+        if (productRepository.reserveQuantity(productId, addProductToOrderPayload.getQuantity()) == 0)
+            throw new NotEnoughProductQuantityException();
+        productCatalog.invalidate();
+        Order order = orderRepository.findByUserIdAndStatus(id, OrderStatus.NOT_PAID).orElseGet(() -> createEmptyOrder(id));
+        OrderItem orderItem = order.getOrderItems().stream().filter(x -> x.getProduct().getId().equals(productId)).findFirst().orElse(null);
+        if (orderItem != null) {
+            orderItem.setQuantity(orderItem.getQuantity() + addProductToOrderPayload.getQuantity());
+        } else {
+            Product product = productRepository.findById(productId).orElseThrow(NullPointerException::new);
+            order.getOrderItems().add(OrderItem.builder().quantity(addProductToOrderPayload.getQuantity()).unitPrice(product.getPrice()).product(product).order(order).build());
+        }
+        updateCart(order);
+        return modelMapper.fromOrderToOrderDto(orderRepository.save(order));
+    }
+
+    /**
+     * Applies a batch of quantity deltas. Lines may add new products, but a negative delta only makes sense
+     * against a product already in the cart. Stock is released only after the cart is saved, since the release
+     * flushes and clears the persistence context.
+     */
+    private OrderDto changeCart(Long id, List<AddProductToOrderPayload> lines) {
+        if (lines.stream().anyMatch(line -> line.getQuantity() == 0))
+            throw new InvalidQuantityException();
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        lines.forEach(line -> deltas.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+        deltas.forEach((productId, delta) -> {
+            if (delta > 0 && productRepository.reserveQuantity(productId, delta) == 0)
+                throw new NotEnoughProductQuantityException();
+        });
+
+        Order order = orderRepository.findByUserIdAndStatus(id, OrderStatus.NOT_PAID).orElseGet(() -> createEmptyOrder(id));
+        Map<Long, OrderItem> items = order.getOrderItems().stream().collect(Collectors.toMap(x -> x.getProduct().getId(), Function.identity()));
+        List<Long> newProductIds = deltas.entrySet().stream().filter(x -> x.getValue() > 0 && !items.containsKey(x.getKey())).map(Map.Entry::getKey).collect(Collectors.toList());
+        Map<Long, Product> products = newProductIds.isEmpty() ? Collections.emptyMap() : productRepository.findAllById(newProductIds).stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Map<Long, Integer> releases = new LinkedHashMap<>();
+        deltas.forEach((productId, delta) -> {
+            OrderItem orderItem = items.get(productId);
+            if (orderItem == null) {
+                if (delta < 0)
+                    throw new InvalidQuantityException();
+                if (delta > 0)
+                    order.getOrderItems().add(OrderItem.builder().quantity(delta).unitPrice(products.get(productId).getPrice()).product(products.get(productId)).order(order).build());
+                return;
+            }
+            int quantity = orderItem.getQuantity() + delta;
+            if (delta < 0)
+                releases.put(productId, Math.min(-delta, orderItem.getQuantity()));
+            if (quantity > 0)
+                orderItem.setQuantity(quantity);
+            else
+                order.getOrderItems().remove(orderItem);
+        });
+        updateCart(order);
+        Order saved = orderRepository.save(order);
+        releases.forEach(productRepository::releaseQuantity);
+        productCatalog.invalidate();
+        return modelMapper.fromOrderToOrderDto(saved);
+    }
+
+    /**
+     * Takes one unit off a line of the caller's cart and drops the line once it reaches zero. The unit goes back to
+     * stock only after the cart is saved, as in {@link #changeCart}.
+     */
+    private OrderDto reduceCart(Long userId, Long orderId, AddProductToOrderPayload addProductToOrderPayload) {
+        Long productId = addProductToOrderPayload.getProductId();
+        Order order = orderRepository.findWithItemsById(orderId)
+                .filter(x -> x.getStatus() == OrderStatus.NOT_PAID && userId.equals(x.getUserId()))
+                .orElseThrow(ResourceNotFoundException::new);
+
+        OrderItem orderItem = order.getOrderItems().stream().filter(x -> x.getProduct().getId().equals(productId)).findFirst().orElseThrow(ResourceNotFoundException::new);
+        if (orderItem.getQuantity() > 1)
+            orderItem.setQuantity(orderItem.getQuantity() - 1);
+        else
+            order.getOrderItems().remove(orderItem);
+        updateCart(order);
+
+        Order saved = orderRepository.save(order);
+        productRepository.releaseQuantity(productId, 1);
+        productCatalog.invalidate();
+        return modelMapper.fromOrderToOrderDto(saved);
+    }
+
+    private <T> T inTransaction(String operation, Supplier<T> action) {
+        return concurrencyRetry.execute(operation, () -> transactionTemplate.execute(status -> action.get()));
+    }
+
+    private void updateCart(Order order) {
+        order.setTotalPrice(order.getOrderItems().stream().mapToDouble(value -> value.getUnitPrice() * value.getQuantity()).sum());
+        order.setReservedUntil(LocalDateTime.now().plusMinutes(reservationTtlMinutes));
+    }
+
+    private Order createEmptyOrder(Long userId) {
+        return orderRepository.save(Order
+                .builder()
+                .status(OrderStatus.NOT_PAID)
+                .orderItems(new LinkedList<>())
+                .user(userRepository.findById(userId).orElseThrow(NullPointerException::new))
+                .totalPrice(0.00)
+                .build());
+    }
+}
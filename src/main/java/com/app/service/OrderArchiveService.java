@@ -0,0 +1,163 @@
+package com.app.service;
+
+import com.app.model.ArchivedOrder;
+import com.app.model.OrderStatus;
+import com.app.model.dto.OrderDto;
+import com.app.model.modelMappers.ModelMapper;
+import com.app.payloads.responses.OrderArchivePayload;
+import com.app.queue.OrderQueue;
+import com.app.queue.OrderQueueEvents;
+import com.app.queue.QueueEventType;
+import com.app.repository.ArchivedOrderRepository;
+import com.app.repository.OrderRepository;
+import com.app.utils.ConcurrencyRetry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Moves CLOSED and COMPLETED orders older than {@code order.archive.after-days} out of the live tables, so hot
+ * queries only see the working set. Reads go through this service so they can skip the archive tier entirely
+ * while it is still empty.
+ */
+@Service
+public class OrderArchiveService {
+    public static final Set<OrderStatus> ARCHIVE_STATUSES = Collections.unmodifiableSet(EnumSet.of(OrderStatus.CLOSED, OrderStatus.COMPLETED));
+
+    private final AtomicLong totalArchivedOrders = new AtomicLong();
+    private volatile OrderArchivePayload lastArchive = new OrderArchivePayload();
+    private volatile boolean archived;
+
+    @Value("${order.archive.after-days:30}")
+    private int afterDays;
+    @Value("${order.archive.batch-size:500}")
+    private int batchSize;
+
+    private OrderRepository orderRepository;
+    private ArchivedOrderRepository archivedOrderRepository;
+    private OrderQueue orderQueue;
+    private OrderQueueEvents orderQueueEvents;
+    private ModelMapper modelMapper;
+    private ConcurrencyRetry concurrencyRetry;
+    private TransactionTemplate transactionTemplate;
+
+    public OrderArchiveService(OrderRepository orderRepository, ArchivedOrderRepository archivedOrderRepository, OrderQueue orderQueue, OrderQueueEvents orderQueueEvents, ModelMapper modelMapper, ConcurrencyRetry concurrencyRetry, PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderQueue = orderQueue;
+        this.orderQueueEvents = orderQueueEvents;
+        this.modelMapper = modelMapper;
+        this.concurrencyRetry = concurrencyRetry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void load() {
+        archived = archivedOrderRepository.count() > 0;
+    }
+
+    public OrderArchivePayload archiveClosedOrders() {
+        long begin = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusDays(afterDays);
+        int total = 0;
+        List<OrderRepository.ArchivableOrder> batch;
+        do {
+            batch = concurrencyRetry.execute("order.archive", () -> transactionTemplate.execute(status -> archiveBatch(cutoff, now)));
+            if (!batch.isEmpty())
+                archived = true;
+            batch.forEach(order -> orderQueue.remove(order.getId())
+                    .ifPresent(orderDto -> orderQueueEvents.publish(QueueEventType.ORDER_REMOVED, order.getUserId(), orderDto)));
+            total += batch.size();
+        } while (batch.size() == batchSize);
+        if (!archived)
+            archived = archivedOrderRepository.count() > 0;
+
+        lastArchive = OrderArchivePayload.builder()
+                .lastArchive(now)
+                .lastArchiveMillis(System.currentTimeMillis() - begin)
+                .lastCutoff(cutoff)
+                .lastArchivedOrders(total)
+                .totalArchivedOrders(totalArchivedOrders.addAndGet(total))
+                .build();
+        return lastArchive;
+    }
+
+    public OrderArchivePayload getLastArchive() {
+        return lastArchive;
+    }
+
+    public boolean isEmpty() {
+        return !archived;
+    }
+
+    public long count() {
+        return archived ? archivedOrderRepository.count() : 0;
+    }
+
+    public List<OrderDto> getAllOrders() {
+        return archived ? toDto(archivedOrderRepository.findAllWithItems()) : Collections.emptyList();
+    }
+
+    public List<OrderDto> getUserOrders(Long userId) {
+        return archived ? toDto(archivedOrderRepository.findByUserId(userId)) : Collections.emptyList();
+    }
+
+    public List<OrderDto> getUserOrders(Long userId, OrderStatus status) {
+        return archived ? toDto(archivedOrderRepository.findAllByUserIdAndStatus(userId, status)) : Collections.emptyList();
+    }
+
+    public List<OrderDto> getOrders(Collection<Long> ids) {
+        return archived && !ids.isEmpty() ? toDto(archivedOrderRepository.findAllWithItemsByIdIn(ids)) : Collections.emptyList();
+    }
+
+    public Optional<OrderDto> getOrder(Long id) {
+        return archived ? archivedOrderRepository.findWithItemsById(id).map(modelMapper::fromArchivedOrderToOrderDto) : Optional.empty();
+    }
+
+    public boolean exists(Long id) {
+        return archived && archivedOrderRepository.existsById(id);
+    }
+
+    public List<OrderRepository.HistoryEntry> getHistoryPage(Long userId, OrderStatus status, LocalDateTime from, LocalDateTime to, LocalDateTime afterTime, Long afterId, int size) {
+        if (!archived)
+            return Collections.emptyList();
+        return afterTime == null
+                ? archivedOrderRepository.findHistoryPageIds(userId, status, from, to, PageRequest.of(0, size))
+                : archivedOrderRepository.findHistoryPageIdsAfter(userId, status, from, to, afterTime, afterId, PageRequest.of(0, size));
+    }
+
+    public Optional<OrderRepository.CompletionTotals> getCompletionTotals() {
+        return archived ? Optional.of(archivedOrderRepository.sumCompletionTimes()) : Optional.empty();
+    }
+
+    public List<OrderRepository.ClientOrderId> getClientOrderIds(Collection<String> clientIds) {
+        return archived ? archivedOrderRepository.findIdsByClientIdIn(clientIds) : Collections.emptyList();
+    }
+
+    private List<OrderRepository.ArchivableOrder> archiveBatch(LocalDateTime cutoff, LocalDateTime now) {
+        List<OrderRepository.ArchivableOrder> orders = orderRepository.findArchivableOrders(ARCHIVE_STATUSES, cutoff, PageRequest.of(0, batchSize));
+        if (orders.isEmpty())
+            return orders;
+        List<Long> ids = orders.stream().map(OrderRepository.ArchivableOrder::getId).collect(Collectors.toList());
+        archivedOrderRepository.copyOrders(ids, now);
+        archivedOrderRepository.copyOrderItems(ids);
+        orderRepository.deleteItemsByOrderIdIn(ids);
+        if (orderRepository.deleteArchivedOrders(ids, ARCHIVE_STATUSES) != ids.size())
+            throw new OptimisticLockingFailureException("Order changed while it was archived");
+        return orders;
+    }
+
+    private List<OrderDto> toDto(List<ArchivedOrder> orders) {
+        return orders.stream().map(modelMapper::fromArchivedOrderToOrderDto).collect(Collectors.toList());
+    }
+}
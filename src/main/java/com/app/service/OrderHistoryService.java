@@ -0,0 +1,84 @@
+package com.app.service;
+
+import com.app.exception.InvalidCursorException;
+import com.app.model.OrderStatus;
+import com.app.model.dto.OrderDto;
+import com.app.model.modelMappers.ModelMapper;
+import com.app.payloads.responses.OrderPagePayload;
+import com.app.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads over past orders, live and archived alike, so callers never need to know where an order is kept.
+ */
+@Service
+public class OrderHistoryService {
+    private OrderRepository orderRepository;
+    private ModelMapper modelMapper;
+    private OrderArchiveService orderArchiveService;
+
+    @Value("${order.page.default-size:20}")
+    private int defaultPageSize;
+    @Value("${order.page.max-size:100}")
+    private int maxPageSize;
+
+    public OrderHistoryService(OrderRepository orderRepository, ModelMapper modelMapper, OrderArchiveService orderArchiveService) {
+        this.orderRepository = orderRepository;
+        this.modelMapper = modelMapper;
+        this.orderArchiveService = orderArchiveService;
+    }
+
+    public OrderPagePayload getOrdersPage(Long userId, OrderStatus status, LocalDateTime from, LocalDateTime to, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        LocalDateTime afterTime = null;
+        Long afterId = null;
+        if (cursor != null) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterTime = LocalDateTime.parse(parts[0]);
+                afterId = Long.valueOf(parts[1]);
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException();
+            }
+        }
+        List<OrderRepository.HistoryEntry> live = afterTime == null
+                ? orderRepository.findHistoryPageIds(userId, status, from, to, PageRequest.of(0, pageSize + 1))
+                : orderRepository.findHistoryPageIdsAfter(userId, status, from, to, afterTime, afterId, PageRequest.of(0, pageSize + 1));
+        List<OrderRepository.HistoryEntry> archived = orderArchiveService.getHistoryPage(userId, status, from, to, afterTime, afterId, pageSize + 1);
+        List<Long> ids = Stream.concat(live.stream(), archived.stream())
+                .sorted(Comparator.comparing(OrderRepository.HistoryEntry::getStartedTime).thenComparing(OrderRepository.HistoryEntry::getId).reversed())
+                .limit(pageSize + 1)
+                .map(OrderRepository.HistoryEntry::getId)
+                .collect(Collectors.toList());
+        boolean hasNext = ids.size() > pageSize;
+        if (hasNext)
+            ids = ids.subList(0, pageSize);
+        Set<Long> liveIds = live.stream().map(OrderRepository.HistoryEntry::getId).collect(Collectors.toSet());
+        List<Long> livePage = ids.stream().filter(liveIds::contains).collect(Collectors.toList());
+        List<Long> archivedPage = ids.stream().filter(id -> !liveIds.contains(id)).collect(Collectors.toList());
+        Map<Long, OrderDto> orders = new HashMap<>();
+        if (!livePage.isEmpty())
+            orderRepository.findAllWithItemsByIdIn(livePage).forEach(order -> orders.put(order.getId(), modelMapper.fromOrderToOrderDto(order)));
+        orderArchiveService.getOrders(archivedPage).forEach(order -> orders.put(order.getId(), order));
+        List<OrderDto> page = ids.stream().map(orders::get).collect(Collectors.toList());
+        OrderDto last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return OrderPagePayload.builder()
+                .orders(page)
+                .nextCursor(hasNext ? Base64.getUrlEncoder().encodeToString((last.getStartedTime() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8)) : null)
+                .build();
+    }
+
+    public List<OrderDto> getUserCompletedOrders(Long userId) {
+        List<OrderDto> orders = orderRepository.findAllByUserIdAndStatus(userId, OrderStatus.COMPLETED).stream().map(modelMapper::fromOrderToOrderDto).collect(Collectors.toList());
+        orders.addAll(orderArchiveService.getUserOrders(userId, OrderStatus.COMPLETED));
+        return orders;
+    }
+}
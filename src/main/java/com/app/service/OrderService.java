@@ -4,176 +4,288 @@ import com.app.exception.NotEnoughBalanceException;
 import com.app.model.*;
 import com.app.model.dto.OrderDto;
 import com.app.model.modelMappers.ModelMapper;
-import com.app.payloads.requests.AddProductToOrderPayload;
 import com.app.payloads.requests.ChangeOrderStatusPayload;
-import com.app.repository.ProductRepository;
+import com.app.payloads.requests.MarkBatchPouredPayload;
+import com.app.payloads.responses.PourBatchPayload;
+import com.app.payloads.responses.QueuePositionPayload;
+import com.app.payloads.responses.QueueSimulationPayload;
+import com.app.payloads.responses.StationOrderPayload;
+import com.app.payloads.responses.StationPayload;
+import com.app.pricing.CartLine;
+import com.app.pricing.PricedCart;
+import com.app.pricing.PricingEngine;
+import com.app.queue.OrderQueue;
+import com.app.queue.OrderQueueEvents;
+import com.app.queue.QueueEventType;
+import com.app.queue.QueueSimulation;
+import com.app.queue.ServiceTimeEstimator;
+import com.app.queue.StationStatistics;
 import com.app.repository.OrderRepository;
 import com.app.repository.UserRepository;
+import com.app.utils.ConcurrencyRetry;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.List;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
 @Service
 public class OrderService {
     private OrderRepository orderRepository;
-    private ProductRepository productRepository;
     private UserRepository userRepository;
     private ModelMapper modelMapper;
-
-
-    public OrderService(OrderRepository orderRepository, ProductRepository productRepository, UserRepository userRepository, ModelMapper modelMapper) {
+    private OrderQueue orderQueue;
+    private OrderQueueEvents orderQueueEvents;
+    private StationStatistics stationStatistics;
+    private ServiceTimeEstimator serviceTimeEstimator;
+    private QueueSimulation queueSimulation;
+    private OrderArchiveService orderArchiveService;
+    private PricingEngine pricingEngine;
+    private ConcurrencyRetry concurrencyRetry;
+    private TransactionTemplate transactionTemplate;
+
+    public OrderService(OrderRepository orderRepository, UserRepository userRepository, ModelMapper modelMapper, OrderQueue orderQueue, OrderQueueEvents orderQueueEvents, StationStatistics stationStatistics, ServiceTimeEstimator serviceTimeEstimator, QueueSimulation queueSimulation, OrderArchiveService orderArchiveService, PricingEngine pricingEngine, ConcurrencyRetry concurrencyRetry, PlatformTransactionManager transactionManager) {
         this.orderRepository = orderRepository;
-        this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.modelMapper = modelMapper;
+        this.orderQueue = orderQueue;
+        this.orderQueueEvents = orderQueueEvents;
+        this.stationStatistics = stationStatistics;
+        this.serviceTimeEstimator = serviceTimeEstimator;
+        this.queueSimulation = queueSimulation;
+        this.orderArchiveService = orderArchiveService;
+        this.pricingEngine = pricingEngine;
+        this.concurrencyRetry = concurrencyRetry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public List<OrderDto> getAllOrders() {
-        return orderRepository.findAll().stream().map(modelMapper::fromOrderToOrderDto).collect(Collectors.toList());
+        List<OrderDto> orders = orderRepository.findAllWithItems().stream().map(modelMapper::fromOrderToOrderDto).collect(Collectors.toList());
+        orders.addAll(orderArchiveService.getAllOrders());
+        return orders;
     }
 
     public List<OrderDto> getQueueOrders() {
-        return orderRepository.findAll().stream().filter(order -> order.getStatus() != OrderStatus.CLOSED && order.getStatus() != OrderStatus.NOT_PAID).sorted(Comparator.comparing(Order::getStartedTime)).map(modelMapper::fromOrderToOrderDto).collect(Collectors.toList());
+        return orderQueue.getOrders();
     }
 
-    public List<OrderDto> getAllUserOrders(Long id) {
-        return orderRepository.findByUserId(id).stream().map(modelMapper::fromOrderToOrderDto).collect(Collectors.toList());
+    public List<QueueSimulationPayload> simulateQueue(LocalDateTime from, LocalDateTime to, Integer servers) {
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = from == null ? end.minusDays(7) : from;
+        List<OrderDto> orders = orderRepository.findAllWithItemsStartedBetween(start, end).stream().map(modelMapper::fromOrderToOrderDto).collect(Collectors.toList());
+        return queueSimulation.simulate(orders, servers == null ? 1 : servers);
     }
 
-    public int getUserQueuePosition(Long orderId) {
-        List<OrderDto> allOrdersInQueue = getQueueOrders();
-        Order order = orderRepository.findById(orderId).orElseThrow(NullPointerException::new);
-        int counter = 0;
-        for (OrderDto o : allOrdersInQueue) {
-            if (!o.getId().equals(order.getId())) {
-                counter += 1;
-            } else {
-                return counter;
-            }
-        }
-        return counter;
+    public List<PourBatchPayload> getPourBatches() {
+        return orderQueue.getPourBatches();
     }
 
-    public OrderDto getOrder(Long id) {
-        return orderRepository.findById(id).map(modelMapper::fromOrderToOrderDto).orElseThrow(NullPointerException::new);
+    public List<OrderDto> markBatchPoured(MarkBatchPouredPayload markBatchPouredPayload) {
+        List<Order> orders = inTransaction("order.pour", () -> orderRepository.saveAll(orderRepository.findAllWithItemsByIdIn(markBatchPouredPayload.getOrderIds()).stream()
+                .filter(order -> OrderQueue.isPourable(order.getStatus()))
+                .filter(order -> pour(order, item -> item.getProduct().getId().equals(markBatchPouredPayload.getProductId())))
+                .collect(Collectors.toList())));
+        return orders.stream().map(order -> {
+            OrderDto orderDto = modelMapper.fromOrderToOrderDto(order);
+            updateQueue(order.getUserId(), orderDto);
+            return orderDto;
+        }).collect(Collectors.toList());
     }
 
-    public OrderDto getNotPaidUserOrder(Long id) {
-        return orderRepository.findByUserIdAndStatus(id, OrderStatus.NOT_PAID).map(modelMapper::fromOrderToOrderDto).isPresent() ? orderRepository.findByUserIdAndStatus(id, OrderStatus.NOT_PAID).map(modelMapper::fromOrderToOrderDto).get() : createEmptyOrder(id);
+    public List<StationPayload> getStations() {
+        return Arrays.stream(ProductTypes.values()).map(station -> {
+            List<StationOrderPayload> orders = orderQueue.getStationOrders(station);
+            return stationStatistics.describe(station)
+                    .depth(orders.size())
+                    .inProgress((int) orders.stream().filter(order -> order.getStatus() == StationStatus.IN_PROGRESS).count())
+                    .build();
+        }).collect(Collectors.toList());
     }
 
-    public OrderDto deleteProductFromOrder(Long orderId, Long productId) {
-        Order order = orderRepository.findById(orderId).orElseThrow(NullPointerException::new);
-
-        OrderItem orderItem = order.getOrderItems().stream().filter(x -> x.getProduct().getId().equals(productId)).findFirst().get();
+    public List<StationOrderPayload> getStationOrders(ProductTypes station) {
+        return orderQueue.getStationOrders(station);
+    }
 
-        Product product = productRepository.findById(productId).get();
-        product.setQuantity(product.getQuantity() + orderItem.getQuantity());
+    public OrderDto startStation(ProductTypes station, Long orderId) {
+        Order order = inTransaction("order.station", () -> {
+            Order current = orderRepository.findWithItemsById(orderId).orElseThrow(NullPointerException::new);
+            List<OrderItem> items = pendingStationItems(current, station);
+            if (items.isEmpty())
+                throw new NullPointerException();
+            LocalDateTime now = LocalDateTime.now();
+            items.stream().filter(item -> item.getStartedTime() == null).forEach(item -> item.setStartedTime(now));
+            current.setStatus(OrderStatus.INPROGRESS);
+            return orderRepository.save(current);
+        });
+        OrderDto orderDto = modelMapper.fromOrderToOrderDto(order);
+        updateQueue(order.getUserId(), orderDto);
+        return orderDto;
+    }
 
-        order.setOrderItems(order.getOrderItems().stream().filter(y -> !y.getProduct().getId().equals(productId)).collect(Collectors.toList()));
-        order.setTotalPrice(order.getOrderItems().stream().mapToDouble(value -> value.getUnitPrice() * value.getQuantity()).sum());
+    public OrderDto completeStation(ProductTypes station, Long orderId) {
+        Order order = inTransaction("order.station", () -> {
+            Order current = orderRepository.findWithItemsById(orderId).orElseThrow(NullPointerException::new);
+            if (pendingStationItems(current, station).isEmpty())
+                throw new NullPointerException();
+            pour(current, item -> isStation(item, station));
+            return orderRepository.save(current);
+        });
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime started = order.getOrderItems().stream()
+                .filter(item -> isStation(item, station) && item.getStartedTime() != null)
+                .map(OrderItem::getStartedTime)
+                .min(Comparator.naturalOrder())
+                .orElse(now);
+        if (order.getStartedTime() != null)
+            stationStatistics.record(station, Duration.between(order.getStartedTime(), started).toMillis() / 1000.0, Duration.between(order.getStartedTime(), now).toMillis() / 1000.0);
+        OrderDto orderDto = modelMapper.fromOrderToOrderDto(order);
+        updateQueue(order.getUserId(), orderDto);
+        return orderDto;
+    }
 
-        orderItem.setOrder(null);
+    public SseEmitter subscribeQueueOrders() {
+        return orderQueueEvents.subscribe();
+    }
 
-        productRepository.save(product);
-        orderRepository.save(order);
+    public SseEmitter subscribeUserOrders(Long userId) {
+        return orderQueueEvents.subscribe(userId);
+    }
 
+    public List<OrderDto> getAllUserOrders(Long id) {
+        List<OrderDto> orders = orderRepository.findByUserId(id).stream().map(modelMapper::fromOrderToOrderDto).map(this::withEstimatedCompleteTime).collect(Collectors.toList());
+        orders.addAll(orderArchiveService.getUserOrders(id));
+        return orders;
+    }
 
-        return modelMapper.fromOrderToOrderDto(order);
+    public int getUserQueuePosition(Long orderId) {
+        return orderQueue.getPosition(orderId).orElseGet(() -> {
+            if (!orderRepository.existsById(orderId) && !orderArchiveService.exists(orderId))
+                throw new NullPointerException();
+            return orderQueue.size();
+        });
     }
 
-    public OrderDto order(Long id, AddProductToOrderPayload addProductToOrderPayload) {
-        if (productRepository.findById(addProductToOrderPayload.getProductId()).get().getQuantity() == 0)
-            throw new NullPointerException();
-        if (!orderRepository.findByUserIdAndStatus(id, OrderStatus.NOT_PAID).isPresent())
-            createEmptyOrder(id);
-        Order order = orderRepository.findByUserIdAndStatus(id, OrderStatus.NOT_PAID).orElseThrow(NullPointerException::new);
-        if (!order.getOrderItems().isEmpty()
-                && order.getOrderItems().stream().anyMatch(x -> x.getProduct().getId().equals(addProductToOrderPayload.getProductId()))) {
-            OrderItem orderItem = order.getOrderItems().stream().filter(x -> x.getProduct().getId().equals(addProductToOrderPayload.getProductId())).findFirst().get();
-            orderItem.setQuantity(orderItem.getQuantity() + addProductToOrderPayload.getQuantity());
-            Product product = productRepository.findById(addProductToOrderPayload.getProductId()).get();
-            product.setQuantity(product.getQuantity() - addProductToOrderPayload.getQuantity());
-            order.setTotalPrice(order.getOrderItems().stream().mapToDouble(value -> value.getUnitPrice() * value.getQuantity()).sum());
-            productRepository.save(product);
-            orderRepository.save(order);
-            return modelMapper.fromOrderToOrderDto(order);
-        }
-        Product product = productRepository.findById(addProductToOrderPayload.getProductId()).get();
-        product.setQuantity(product.getQuantity() - addProductToOrderPayload.getQuantity());
-        OrderItem orderItem = OrderItem.builder().quantity(addProductToOrderPayload.getQuantity()).unitPrice(product.getPrice()).product(product).order(order).build();
-        order.getOrderItems().add(orderItem);
-        order.setTotalPrice(order.getOrderItems().stream().mapToDouble(value -> value.getUnitPrice() * value.getQuantity()).sum());
-        productRepository.save(product);
-        orderRepository.save(order);
-        return modelMapper.fromOrderToOrderDto(order);
+    public QueuePositionPayload getQueuePosition(Long orderId) {
+        return QueuePositionPayload.builder()
+                .orderId(orderId)
+                .status(orderQueue.getOrder(orderId).map(OrderDto::getStatus).orElse(null))
+                .position(getUserQueuePosition(orderId))
+                .estimatedCompleteTime(orderQueue.getEstimatedCompleteTime(orderId).orElse(null))
+                .build();
     }
 
-    public OrderDto reduceQuantity(Long id, AddProductToOrderPayload addProductToOrderPayload) {
+    public OrderDto getOrder(Long id) {
+        return orderRepository.findWithItemsById(id).map(modelMapper::fromOrderToOrderDto).map(this::withEstimatedCompleteTime)
+                .orElseGet(() -> orderArchiveService.getOrder(id).orElseThrow(NullPointerException::new));
+    }
 
-        Order order = orderRepository.findById(id).orElseThrow(NullPointerException::new);
+    public OrderDto confirmOrder(Long id, Long method) {
+        Long orderId = inTransaction("order.confirm", () -> confirm(id, method));
+        OrderDto orderDto = orderRepository.findWithItemsById(orderId).map(modelMapper::fromOrderToOrderDto).orElseThrow(NullPointerException::new);
+        updateQueue(id, orderDto);
+        return withEstimatedCompleteTime(orderDto);
+    }
 
-        OrderItem orderItem = order.getOrderItems().stream().filter(x -> x.getProduct().getId().equals(addProductToOrderPayload.getProductId())).findFirst().get();
-        orderItem.setQuantity(orderItem.getQuantity() - 1);
+    private Long confirm(Long userId, Long method) {
+        if (!pricingEngine.isEmpty())
+            return confirmPriced(userId, method);
+        OrderRepository.OrderTotal order = orderRepository.findTotalByUserIdAndStatus(userId, OrderStatus.NOT_PAID).orElseThrow(NullPointerException::new);
+        OrderStatus status = pay(userId, method, order.getTotalPrice());
+        if (orderRepository.transitionStatus(order.getId(), OrderStatus.NOT_PAID, order.getVersion(), status, LocalDateTime.now()) == 0)
+            throw new OptimisticLockingFailureException("Order " + order.getId() + " changed during confirmation");
+        return order.getId();
+    }
 
-        Product product = productRepository.findById(addProductToOrderPayload.getProductId()).get();
-        product.setQuantity(product.getQuantity() + 1);
+    private Long confirmPriced(Long userId, Long method) {
+        Order order = orderRepository.findByUserIdAndStatus(userId, OrderStatus.NOT_PAID).orElseThrow(NullPointerException::new);
+        List<OrderItem> items = order.getOrderItems();
+        PricedCart pricedCart = pricingEngine.price(items.stream()
+                .map(item -> new CartLine(item.getProduct().getId(), item.getProduct().getProductType(), item.getUnitPrice(), item.getQuantity() == null ? 0 : item.getQuantity()))
+                .collect(Collectors.toList()), LocalTime.now());
+        for (int i = 0; i < items.size(); i++)
+            items.get(i).setUnitPrice(pricedCart.getUnitPrice(i));
+        order.setDiscount(pricedCart.getDiscount());
+        order.setTotalPrice(pricedCart.getTotalPrice());
+        order.setStatus(pay(userId, method, order.getTotalPrice()));
+        order.setStartedTime(LocalDateTime.now());
+        return orderRepository.saveAndFlush(order).getId();
+    }
 
-        order.setTotalPrice(order.getOrderItems().stream().mapToDouble(value -> value.getUnitPrice() * value.getQuantity()).sum());
+    private OrderStatus pay(Long userId, Long method, Double totalPrice) {
+        if (method == 1L) {
+            if (userRepository.debitBalance(userId, totalPrice) == 0)
+                throw new NotEnoughBalanceException();
+            return OrderStatus.QUEUED;
+        }
+        return method == 2L ? OrderStatus.CASH_PAID : OrderStatus.NOT_PAID;
+    }
 
-        productRepository.save(product);
-        orderRepository.save(order);
+    public OrderDto changeOrderStatus(Long id, ChangeOrderStatusPayload changeOrderStatusPayload) {
+        Order order = inTransaction("order.status", () -> {
+            Order current = orderRepository.findWithItemsById(id).orElseThrow(NullPointerException::new);
+            if (changeOrderStatusPayload.getOrderStatus().equals(OrderStatus.COMPLETED.toString())) {
+                current.setCompleteTime(LocalDateTime.now());
+            }
+            current.setStatus(OrderStatus.valueOf(changeOrderStatusPayload.getOrderStatus()));
+            return orderRepository.save(current);
+        });
+        OrderDto orderDto = modelMapper.fromOrderToOrderDto(order);
+        updateQueue(order.getUserId(), orderDto);
+        return orderDto;
+    }
 
+    private boolean pour(Order order, Predicate<OrderItem> filter) {
+        List<OrderItem> items = order.getOrderItems().stream().filter(item -> !item.isPoured() && filter.test(item)).collect(Collectors.toList());
+        if (items.isEmpty())
+            return false;
+        items.forEach(item -> item.setPoured(true));
+        if (order.getOrderItems().stream().allMatch(OrderItem::isPoured)) {
+            order.setStatus(OrderStatus.COMPLETED);
+            order.setCompleteTime(LocalDateTime.now());
+        } else {
+            order.setStatus(OrderStatus.INPROGRESS);
+        }
+        return true;
+    }
 
-        return modelMapper.fromOrderToOrderDto(order);
+    private List<OrderItem> pendingStationItems(Order order, ProductTypes station) {
+        if (!OrderQueue.isPourable(order.getStatus()))
+            return Collections.emptyList();
+        return order.getOrderItems().stream().filter(item -> !item.isPoured() && isStation(item, station)).collect(Collectors.toList());
     }
 
-    public OrderDto confirmOrder(Long id, Long method) {
-        Order order = orderRepository.findByUserIdAndStatus(id, OrderStatus.NOT_PAID).orElseThrow(NullPointerException::new);
-        if (method == 1L) {
-            User user = userRepository.findById(id).orElseThrow(NullPointerException::new);
+    private boolean isStation(OrderItem item, ProductTypes station) {
+        return item.getProduct() != null && station.name().equals(item.getProduct().getProductType());
+    }
 
-            if (user.getBalance() < order.getTotalPrice()) {
-                throw new NotEnoughBalanceException();
-            }
-            user.setBalance(user.getBalance() - order.getTotalPrice());
-            order.setStatus(OrderStatus.QUEUED);
-            userRepository.save(user);
-        } else if (method == 2L) {
-            order.setStatus(OrderStatus.CASH_PAID);
-        }
-        order.setStartedTime(LocalDateTime.now());
+    private <T> T inTransaction(String operation, Supplier<T> action) {
+        return concurrencyRetry.execute(operation, () -> transactionTemplate.execute(status -> action.get()));
+    }
 
-        orderRepository.save(order);
-        return modelMapper.fromOrderToOrderDto(order);
+    public void refreshQueue(Collection<Long> orderIds) {
+        orderRepository.findAllWithItemsByIdIn(orderIds).forEach(order -> updateQueue(order.getUserId(), modelMapper.fromOrderToOrderDto(order)));
     }
 
-    public List<OrderDto> getUserCompletedOrders(Long userId) {
-        return orderRepository.findAllByUserIdAndStatus(userId, OrderStatus.COMPLETED).stream().map(modelMapper::fromOrderToOrderDto).collect(Collectors.toList());
+    private void updateQueue(Long userId, OrderDto orderDto) {
+        QueueEventType type = orderQueue.update(userId, orderDto);
+        if (type == QueueEventType.ORDER_COMPLETED)
+            serviceTimeEstimator.observe(orderDto);
+        if (type != null)
+            orderQueueEvents.publish(type, userId, orderDto);
     }
 
-    public OrderDto changeOrderStatus(Long id, ChangeOrderStatusPayload changeOrderStatusPayload) {
-        Order order = orderRepository.findById(id).orElseThrow(NullPointerException::new);
-        if (changeOrderStatusPayload.getOrderStatus().equals(OrderStatus.COMPLETED.toString())) {
-            order.setCompleteTime(LocalDateTime.now());
-        }
-        order.setStatus(OrderStatus.valueOf(changeOrderStatusPayload.getOrderStatus()));
-        orderRepository.save(order);
-        return modelMapper.fromOrderToOrderDto(order);
-    }
-
-    private OrderDto createEmptyOrder(Long userId) {
-        return modelMapper.fromOrderToOrderDto(orderRepository.save(Order
-                .builder()
-                .status(OrderStatus.NOT_PAID)
-                .orderItems(new LinkedList<>())
-                .user(userRepository.findById(userId).orElseThrow(NullPointerException::new))
-                .totalPrice(0.00)
-                .build()));
+    private OrderDto withEstimatedCompleteTime(OrderDto orderDto) {
+        return orderQueue.getEstimatedCompleteTime(orderDto.getId())
+                .map(time -> orderDto.toBuilder().estimatedCompleteTime(time).build())
+                .orElse(orderDto);
     }
 }
@@ -0,0 +1,174 @@
+package com.app.service;
+
+import com.app.model.OrderStatus;
+import com.app.model.PosSyncStatus;
+import com.app.model.Product;
+import com.app.model.User;
+import com.app.payloads.requests.AddProductToOrderPayload;
+import com.app.payloads.requests.PosOrderPayload;
+import com.app.payloads.responses.PosSyncResultPayload;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import com.app.utils.ConcurrencyRetry;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class PosSyncService {
+    private static final String INSERT_ORDER = "insert into " + OrderRepository.TABLE + " (client_id, user_id, status, started_time, total_price, version) values (?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_ORDER_ITEM = "insert into order_item (order_id, product_id, unit_price, quantity, poured) values (?, ?, ?, ?, false)";
+
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private UserRepository userRepository;
+    private OrderService orderService;
+    private OrderArchiveService orderArchiveService;
+    private ProductCatalog productCatalog;
+    private JdbcTemplate jdbcTemplate;
+    private ConcurrencyRetry concurrencyRetry;
+    private TransactionTemplate transactionTemplate;
+
+    public PosSyncService(OrderRepository orderRepository, ProductRepository productRepository, UserRepository userRepository, OrderService orderService, OrderArchiveService orderArchiveService, ProductCatalog productCatalog, JdbcTemplate jdbcTemplate, ConcurrencyRetry concurrencyRetry, PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.orderService = orderService;
+        this.orderArchiveService = orderArchiveService;
+        this.productCatalog = productCatalog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.concurrencyRetry = concurrencyRetry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public List<PosSyncResultPayload> sync(Long barmanId, List<PosOrderPayload> orders) {
+        List<PosSyncResultPayload> results = concurrencyRetry.execute("pos.sync", () -> transactionTemplate.execute(status -> syncBatch(barmanId, orders)));
+        List<Long> created = results.stream().filter(result -> result.getStatus() == PosSyncStatus.CREATED).map(PosSyncResultPayload::getOrderId).collect(Collectors.toList());
+        if (!created.isEmpty())
+            orderService.refreshQueue(created);
+        return results;
+    }
+
+    private List<PosSyncResultPayload> syncBatch(Long barmanId, List<PosOrderPayload> orders) {
+        Set<String> clientIds = orders.stream().map(PosOrderPayload::getClientId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<String, Long> orderIds = findOrderIds(clientIds);
+        Set<Long> productIds = orders.stream()
+                .filter(order -> order.getItems() != null)
+                .flatMap(order -> order.getItems().stream())
+                .map(AddProductToOrderPayload::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+        Set<Long> requestedUserIds = orders.stream().map(PosOrderPayload::getUserId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> userIds = requestedUserIds.isEmpty() ? Collections.emptySet() : userRepository.findAllById(requestedUserIds).stream().map(User::getId).collect(Collectors.toSet());
+
+        Map<Long, Integer> demand = new HashMap<>();
+        List<PosSyncResultPayload> results = new ArrayList<>();
+        Map<String, PosOrderPayload> accepted = new LinkedHashMap<>();
+        Map<String, Map<Long, Integer>> acceptedLines = new HashMap<>();
+        for (PosOrderPayload order : orders) {
+            String clientId = order.getClientId();
+            if (clientId == null || clientId.isEmpty()) {
+                results.add(result(null, PosSyncStatus.REJECTED, "clientId is required"));
+                continue;
+            }
+            if (orderIds.containsKey(clientId) || accepted.containsKey(clientId)) {
+                PosSyncResultPayload duplicate = result(clientId, PosSyncStatus.DUPLICATE, null);
+                duplicate.setOrderId(orderIds.get(clientId));
+                results.add(duplicate);
+                continue;
+            }
+            if (order.getUserId() != null && !userIds.contains(order.getUserId())) {
+                results.add(result(clientId, PosSyncStatus.REJECTED, "unknown user " + order.getUserId()));
+                continue;
+            }
+            if (order.getItems() != null && order.getItems().stream().anyMatch(item -> item.getProductId() == null)) {
+                results.add(result(clientId, PosSyncStatus.REJECTED, "item without product"));
+                continue;
+            }
+            Map<Long, Integer> lines = new LinkedHashMap<>();
+            if (order.getItems() != null)
+                order.getItems().forEach(item -> lines.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+            String reason = validate(lines, products, demand);
+            if (reason != null) {
+                results.add(result(clientId, PosSyncStatus.REJECTED, reason));
+                continue;
+            }
+            lines.forEach((productId, quantity) -> demand.merge(productId, quantity, Integer::sum));
+            accepted.put(clientId, order);
+            acceptedLines.put(clientId, lines);
+            results.add(result(clientId, PosSyncStatus.CREATED, null));
+        }
+        if (accepted.isEmpty())
+            return results;
+
+        demand.forEach((productId, quantity) -> {
+            if (productRepository.reserveQuantity(productId, quantity) == 0)
+                throw new OptimisticLockingFailureException("Stock of product " + productId + " changed during sync");
+        });
+        productCatalog.invalidate();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> orderRows = accepted.values().stream().map(order -> new Object[]{
+                order.getClientId(),
+                order.getUserId() == null ? barmanId : order.getUserId(),
+                OrderStatus.CASH_PAID.name(),
+                Timestamp.valueOf(order.getCreatedTime() == null ? now : order.getCreatedTime()),
+                acceptedLines.get(order.getClientId()).entrySet().stream().mapToDouble(line -> products.get(line.getKey()).getPrice() * line.getValue()).sum()
+        }).collect(Collectors.toList());
+        try {
+            jdbcTemplate.batchUpdate(INSERT_ORDER, orderRows);
+        } catch (DuplicateKeyException e) {
+            throw new OptimisticLockingFailureException("Order synced concurrently", e);
+        }
+
+        Map<String, Long> createdIds = findOrderIds(accepted.keySet());
+        List<Object[]> itemRows = new ArrayList<>();
+        acceptedLines.forEach((clientId, lines) -> lines.forEach((productId, quantity) ->
+                itemRows.add(new Object[]{createdIds.get(clientId), productId, products.get(productId).getPrice(), quantity})));
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, itemRows);
+
+        results.stream().filter(result -> result.getOrderId() == null && createdIds.containsKey(result.getClientId()))
+                .forEach(result -> result.setOrderId(createdIds.get(result.getClientId())));
+        return results;
+    }
+
+    private String validate(Map<Long, Integer> lines, Map<Long, Product> products, Map<Long, Integer> demand) {
+        if (lines.isEmpty())
+            return "order has no items";
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null)
+                return "unknown product " + line.getKey();
+            if (product.getPrice() == null)
+                return "product " + line.getKey() + " has no price";
+            if (line.getValue() <= 0)
+                return "invalid quantity of product " + line.getKey();
+            if (product.getQuantity() - demand.getOrDefault(line.getKey(), 0) < line.getValue())
+                return "not enough stock of product " + line.getKey();
+        }
+        return null;
+    }
+
+    private Map<String, Long> findOrderIds(Collection<String> clientIds) {
+        if (clientIds.isEmpty())
+            return Collections.emptyMap();
+        return Stream.concat(orderRepository.findIdsByClientIdIn(clientIds).stream(), orderArchiveService.getClientOrderIds(clientIds).stream())
+                .collect(Collectors.toMap(OrderRepository.ClientOrderId::getClientId, OrderRepository.ClientOrderId::getId));
+    }
+
+    private static PosSyncResultPayload result(String clientId, PosSyncStatus status, String reason) {
+        return PosSyncResultPayload.builder().clientId(clientId).status(status).reason(reason).build();
+    }
+}
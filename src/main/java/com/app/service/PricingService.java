@@ -0,0 +1,41 @@
+package com.app.service;
+
+import com.app.model.PricingRule;
+import com.app.model.dto.PricingRuleDto;
+import com.app.model.modelMappers.ModelMapper;
+import com.app.pricing.PricingEngine;
+import com.app.repository.PricingRuleRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class PricingService {
+    private PricingRuleRepository pricingRuleRepository;
+    private PricingEngine pricingEngine;
+    private ModelMapper modelMapper;
+
+    public PricingService(PricingRuleRepository pricingRuleRepository, PricingEngine pricingEngine, ModelMapper modelMapper) {
+        this.pricingRuleRepository = pricingRuleRepository;
+        this.pricingEngine = pricingEngine;
+        this.modelMapper = modelMapper;
+    }
+
+    public List<PricingRuleDto> getRules() {
+        return pricingRuleRepository.findAll().stream().map(modelMapper::fromPricingRuleToPricingRuleDto).collect(Collectors.toList());
+    }
+
+    public PricingRuleDto addOrUpdateRule(PricingRuleDto pricingRuleDto) {
+        PricingRule rule = pricingRuleRepository.save(modelMapper.fromPricingRuleDtoToPricingRule(pricingRuleDto));
+        pricingEngine.reload();
+        return modelMapper.fromPricingRuleToPricingRuleDto(rule);
+    }
+
+    public PricingRuleDto deleteRule(Long id) {
+        PricingRule rule = pricingRuleRepository.findById(id).orElseThrow(NullPointerException::new);
+        pricingRuleRepository.delete(rule);
+        pricingEngine.reload();
+        return modelMapper.fromPricingRuleToPricingRuleDto(rule);
+    }
+}
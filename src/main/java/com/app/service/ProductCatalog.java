@@ -0,0 +1,100 @@
+package com.app.service;
+
+import com.app.model.dto.ProductDto;
+import com.app.model.modelMappers.ModelMapper;
+import com.app.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of the public product list, kept as ready-to-send JSON. Every change to products or their
+ * stock bumps the version; the next read rebuilds the snapshot once and all other reads just return its bytes.
+ * The ETag is a hash of those bytes, so it stays the same across restarts and instances while the list does.
+ */
+@Component
+public class ProductCatalog {
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    private ProductRepository productRepository;
+    private ModelMapper modelMapper;
+    private ObjectMapper objectMapper;
+
+    public ProductCatalog(ProductRepository productRepository, ModelMapper modelMapper, ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.modelMapper = modelMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.version == version.get())
+            return current;
+        synchronized (this) {
+            long expected = version.get();
+            current = snapshot;
+            if (current != null && current.version == expected)
+                return current;
+            List<ProductDto> products = productRepository.findAll(Sort.by("id")).stream().map(modelMapper::fromProductToProductDto).collect(Collectors.toList());
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(products);
+                current = new Snapshot(expected, json, DigestUtils.md5DigestAsHex(json));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            snapshot = current;
+            return current;
+        }
+    }
+
+    /**
+     * Marks the catalog stale. Inside a transaction the version moves only once it has finished, so a rebuild
+     * can never cache data from before the commit under the new version.
+     */
+    public void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            version.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    public static class Snapshot {
+        private final long version;
+        private final byte[] json;
+        private final String etag;
+
+        private Snapshot(long version, byte[] json, String etag) {
+            this.version = version;
+            this.json = json;
+            this.etag = etag;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
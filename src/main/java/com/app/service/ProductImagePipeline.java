@@ -0,0 +1,261 @@
+package com.app.service;
+
+import com.app.exception.ImageUploadRejectedException;
+import com.app.model.ImageStatus;
+import com.app.payloads.responses.ImageUploadPayload;
+import com.app.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves product images to S3 off the request thread. A request only spools the upload to a private temp file and
+ * saves the product with a pending token; a worker uploads with retries and then swaps the URL in, but only while
+ * that token is still the product's latest. At most {@code image.upload.capacity} jobs are held at once, beyond
+ * that new uploads are refused with 429 instead of piling up.
+ */
+@Component
+public class ProductImagePipeline {
+    private static final Logger log = LoggerFactory.getLogger(ProductImagePipeline.class);
+
+    private final LongAdder uploaded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder droppedDeletes = new LongAdder();
+    private ScheduledExecutorService workers;
+    private Semaphore permits;
+
+    @Value("${image.upload.workers:4}")
+    private int workerCount;
+    @Value("${image.upload.capacity:32}")
+    private int capacity;
+    @Value("${image.upload.max-attempts:4}")
+    private int maxAttempts;
+    @Value("${image.upload.backoff-millis:500}")
+    private long backoffMillis;
+    @Value("${image.upload.max-backoff-millis:10000}")
+    private long maxBackoffMillis;
+
+    private AmazonClient amazonClient;
+    private ProductRepository productRepository;
+    private ProductCatalog productCatalog;
+    private TransactionTemplate transactionTemplate;
+
+    public ProductImagePipeline(AmazonClient amazonClient, ProductRepository productRepository, ProductCatalog productCatalog, PlatformTransactionManager transactionManager) {
+        this.amazonClient = amazonClient;
+        this.productRepository = productRepository;
+        this.productCatalog = productCatalog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Spooled files do not survive a restart, so uploads still pending from a previous run can never finish.
+     */
+    @PostConstruct
+    void start() {
+        permits = new Semaphore(capacity);
+        AtomicInteger threads = new AtomicInteger();
+        workers = Executors.newScheduledThreadPool(workerCount, task -> {
+            Thread thread = new Thread(task, "image-upload-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (productRepository.failAbandonedImages(ImageStatus.PENDING, ImageStatus.FAILED) > 0)
+            productCatalog.invalidate();
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    public StagedImage stage(MultipartFile multipartFile) throws IOException {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new ImageUploadRejectedException();
+        }
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("product-image-", ".upload");
+            try (InputStream input = multipartFile.getInputStream()) {
+                Files.copy(input, spool, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new StagedImage(UUID.randomUUID().toString(), spool, multipartFile.getOriginalFilename(), multipartFile.getContentType(), Files.size(spool));
+        } catch (IOException | RuntimeException e) {
+            if (spool != null)
+                Files.deleteIfExists(spool);
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back a staged image whose product was never saved.
+     */
+    public void discard(StagedImage image) {
+        if (image == null)
+            return;
+        try {
+            Files.deleteIfExists(image.spool);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled image {}", image.spool, e);
+        }
+        permits.release();
+    }
+
+    public void submit(Long productId, StagedImage image) {
+        workers.execute(() -> upload(productId, image, 1));
+    }
+
+    /**
+     * Deletes an object no product points at anymore. Best effort: dropped rather than queued once the pipeline
+     * is full, since an orphaned object costs nothing but storage.
+     */
+    public void delete(String fileUrl) {
+        if (fileUrl == null || fileUrl.isEmpty())
+            return;
+        if (!permits.tryAcquire()) {
+            droppedDeletes.increment();
+            return;
+        }
+        workers.execute(() -> delete(fileUrl, 1));
+    }
+
+    public ImageUploadPayload getStatistics() {
+        return ImageUploadPayload.builder()
+                .inFlight(capacity - permits.availablePermits())
+                .capacity(capacity)
+                .uploaded(uploaded.sum())
+                .failed(failed.sum())
+                .retried(retried.sum())
+                .superseded(superseded.sum())
+                .rejected(rejected.sum())
+                .droppedDeletes(droppedDeletes.sum())
+                .build();
+    }
+
+    private void upload(Long productId, StagedImage image, int attempt) {
+        String fileUrl;
+        try (InputStream input = Files.newInputStream(image.spool)) {
+            fileUrl = amazonClient.uploadFile(image.originalFilename, image.contentType, image.size, input);
+        } catch (IOException | RuntimeException e) {
+            if (attempt < maxAttempts) {
+                retried.increment();
+                workers.schedule(() -> upload(productId, image, attempt + 1), backoff(attempt), TimeUnit.MILLISECONDS);
+                return;
+            }
+            log.warn("Giving up on image upload for product {} after {} attempts", productId, attempt, e);
+            fail(productId, image);
+            discard(image);
+            return;
+        }
+        swap(productId, image, fileUrl, 1);
+    }
+
+    /**
+     * Points the product at the uploaded object. The upload is not repeated when this fails, only the swap; once
+     * out of attempts the product is marked FAILED rather than left pending.
+     */
+    private void swap(Long productId, StagedImage image, String fileUrl, int attempt) {
+        String previous;
+        try {
+            previous = transactionTemplate.execute(status -> {
+                String current = productRepository.findImgUrlByPendingImage(productId, image.token).orElse("");
+                if (productRepository.finishPendingImage(productId, image.token, fileUrl, ImageStatus.READY) == 0)
+                    return null;
+                productCatalog.invalidate();
+                return current;
+            });
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts) {
+                retried.increment();
+                workers.schedule(() -> swap(productId, image, fileUrl, attempt + 1), backoff(attempt), TimeUnit.MILLISECONDS);
+                return;
+            }
+            log.warn("Giving up on attaching image {} to product {} after {} attempts", fileUrl, productId, attempt, e);
+            fail(productId, image);
+            discard(image);
+            delete(fileUrl);
+            return;
+        }
+        discard(image);
+        if (previous == null) {
+            superseded.increment();
+            delete(fileUrl);
+            return;
+        }
+        uploaded.increment();
+        if (!previous.equals(fileUrl))
+            delete(previous);
+    }
+
+    private void fail(Long productId, StagedImage image) {
+        failed.increment();
+        try {
+            if (productRepository.failPendingImage(productId, image.token, ImageStatus.FAILED) == 1)
+                productCatalog.invalidate();
+        } catch (RuntimeException e) {
+            log.error("Could not mark the image of product {} as failed, it stays pending until restart", productId, e);
+        }
+    }
+
+    private void delete(String fileUrl, int attempt) {
+        try {
+            amazonClient.deleteFileFromS3Bucket(fileUrl);
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts) {
+                retried.increment();
+                workers.schedule(() -> delete(fileUrl, attempt + 1), backoff(attempt), TimeUnit.MILLISECONDS);
+                return;
+            }
+            droppedDeletes.increment();
+        }
+        permits.release();
+    }
+
+    private long backoff(int attempt) {
+        return ThreadLocalRandom.current().nextLong(Math.min(backoffMillis << (attempt - 1), maxBackoffMillis)) + 1;
+    }
+
+    public static class StagedImage {
+        private final String token;
+        private final Path spool;
+        private final String originalFilename;
+        private final String contentType;
+        private final long size;
+
+        private StagedImage(String token, Path spool, String originalFilename, String contentType, long size) {
+            this.token = token;
+            this.spool = spool;
+            this.originalFilename = originalFilename;
+            this.contentType = contentType;
+            this.size = size;
+        }
+
+        public String getToken() {
+            return token;
+        }
+    }
+}
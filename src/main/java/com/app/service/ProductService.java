@@ -1,11 +1,26 @@
 package com.app.service;
 
+import com.app.exception.ConcurrentUpdateException;
+import com.app.exception.ProductInUseException;
+import com.app.exception.VersionRequiredException;
+import com.app.model.ImageStatus;
 import com.app.model.Product;
+import com.app.model.ProductSortKey;
+import com.app.model.ProductTypes;
 import com.app.model.dto.ProductDto;
 import com.app.model.modelMappers.ModelMapper;
+import com.app.payloads.responses.ProductPagePayload;
 import com.app.repository.ProductRepository;
+import com.app.utils.ConcurrencyRetry;
 import com.app.utils.FileManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -17,13 +32,24 @@ public class ProductService {
     private ProductRepository productRepository;
     private ModelMapper modelMapper;
     private FileManager fileManager;
-    private AmazonClient amazonClient;
+    private ProductImagePipeline productImagePipeline;
+    private ProductCatalog productCatalog;
+    private ConcurrencyRetry concurrencyRetry;
+    private TransactionTemplate transactionTemplate;
 
-    public ProductService(ProductRepository productRepository, ModelMapper modelMapper, FileManager fileManager, AmazonClient amazonClient) {
+    @Value("${product.page.default-size:20}")
+    private int defaultPageSize;
+    @Value("${product.page.max-size:100}")
+    private int maxPageSize;
+
+    public ProductService(ProductRepository productRepository, ModelMapper modelMapper, FileManager fileManager, ProductImagePipeline productImagePipeline, ProductCatalog productCatalog, ConcurrencyRetry concurrencyRetry, PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
         this.modelMapper = modelMapper;
         this.fileManager = fileManager;
-        this.amazonClient = amazonClient;
+        this.productImagePipeline = productImagePipeline;
+        this.productCatalog = productCatalog;
+        this.concurrencyRetry = concurrencyRetry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public List<ProductDto> getProducts() {
@@ -34,6 +60,24 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    public ProductPagePayload getProductsPage(ProductTypes type, Double minPrice, Double maxPrice, boolean inStock, ProductSortKey sort, Sort.Direction direction, Integer page, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        ProductSortKey sortKey = sort == null ? ProductSortKey.ID : sort;
+        Sort.Direction sortDirection = direction == null ? Sort.Direction.ASC : direction;
+        Sort order = Sort.by(sortDirection, sortKey.getProperty());
+        if (sortKey != ProductSortKey.ID)
+            order = order.and(Sort.by(sortDirection, "id"));
+        Page<ProductRepository.ProductSummary> products = productRepository.findSummaries(type == null ? null : type.name(), minPrice, maxPrice, inStock, PageRequest.of(pageNumber, pageSize, order));
+        return ProductPagePayload.builder()
+                .products(products.getContent().stream().map(ProductService::toProductDto).collect(Collectors.toList()))
+                .page(pageNumber)
+                .size(pageSize)
+                .totalElements(products.getTotalElements())
+                .hasNext(products.hasNext())
+                .build();
+    }
+
     public ProductDto getProduct(Long id) {
         return productRepository
                 .findById(id)
@@ -42,24 +86,75 @@ public class ProductService {
 
     }
 
+    /**
+     * Updates must carry the version the client read: the DTO overwrites every column, stock included, so an update
+     * without one could silently undo reservations made in the meantime.
+     */
     public ProductDto addOrUpdateProduct(ProductDto productDto, MultipartFile multipartFile) throws IOException, IllegalAccessException {
         if (productDto == null)
             throw new NullPointerException("Product is null");
         Product product = modelMapper.fromProductDtoToProduct(productDto);
-        if (multipartFile != null && productDto.getImgUrl() == null)
-            product.setImgUrl(amazonClient.uploadFile(multipartFile));
-        else if (multipartFile != null && !productDto.getImgUrl().equals("")) {
-            amazonClient.deleteFileFromS3Bucket(productDto.getImgUrl());
-            product.setImgUrl(amazonClient.uploadFile(multipartFile));
+        if (product.getId() != null) {
+            if (product.getVersion() == null)
+                throw new VersionRequiredException();
+            Product current = productRepository.findById(product.getId()).orElseThrow(NullPointerException::new);
+            product.setImageStatus(current.getImageStatus());
+            product.setPendingImage(current.getPendingImage());
+        }
+        ProductImagePipeline.StagedImage image = multipartFile == null ? null : productImagePipeline.stage(multipartFile);
+        if (image != null) {
+            product.setImageStatus(ImageStatus.PENDING);
+            product.setPendingImage(image.getToken());
+        }
+        try {
+            Product productFromDb = productRepository.save(product);
+            productCatalog.invalidate();
+            if (image != null)
+                productImagePipeline.submit(productFromDb.getId(), image);
+            return modelMapper.fromProductToProductDto(productFromDb);
+        } catch (OptimisticLockingFailureException e) {
+            productImagePipeline.discard(image);
+            throw new ConcurrentUpdateException();
+        } catch (RuntimeException e) {
+            productImagePipeline.discard(image);
+            throw e;
         }
-        Product productFromDb = productRepository.save(product);
-        return modelMapper.fromProductToProductDto(productFromDb);
     }
 
+    public ProductDto changePrice(Long id, Double price) {
+        return concurrencyRetry.execute("product.price", () -> transactionTemplate.execute(status -> {
+            Product product = productRepository.findById(id).orElseThrow(NullPointerException::new);
+            product.setPrice(price);
+            productCatalog.invalidate();
+            return modelMapper.fromProductToProductDto(productRepository.saveAndFlush(product));
+        }));
+    }
+
+    /**
+     * Products still referenced by live order items cannot be deleted; once their orders are archived they can.
+     */
     public ProductDto deleteProduct(Long id) {
         Product product = productRepository.findById(id).orElseThrow(NullPointerException::new);
-        amazonClient.deleteFileFromS3Bucket(product.getImgUrl());
+        if (productRepository.isInLiveOrders(id))
+            throw new ProductInUseException();
         productRepository.delete(product);
+        productCatalog.invalidate();
+        productImagePipeline.delete(product.getImgUrl());
         return modelMapper.fromProductToProductDto(product);
     }
+
+    private static ProductDto toProductDto(ProductRepository.ProductSummary product) {
+        return ProductDto.builder()
+                .id(product.getId())
+                .version(product.getVersion())
+                .description(product.getDescription())
+                .imgUrl(product.getImgUrl())
+                .brand(product.getBrand())
+                .price(product.getPrice())
+                .quantity(product.getQuantity())
+                .minimalPrice(product.getMinimalPrice())
+                .productType(ProductTypes.valueOf(product.getProductType()))
+                .imageStatus(product.getImageStatus())
+                .build();
+    }
 }
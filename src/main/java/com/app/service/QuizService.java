@@ -11,10 +11,13 @@ import com.app.repository.*;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 public class QuizService {
+    private final AtomicLong quizzesVersion = new AtomicLong();
+
     private ModelMapper modelMapper;
     private QuizRepository quizRepository;
     private QuestionRepository questionRepository;
@@ -35,6 +38,13 @@ public class QuizService {
         this.userAnswerRepository = userAnswerRepository;
     }
 
+    /**
+     * Moves after every committed change to a quiz, its questions or its answers, i.e. everything in the quiz list.
+     */
+    public long getQuizzesVersion() {
+        return quizzesVersion.get();
+    }
+
     public List<QuizDto> getAllQuizzes() {
         return quizRepository.findAll().stream().map(modelMapper::fromQuizToQuizDto).collect(Collectors.toList());
     }
@@ -66,6 +76,7 @@ public class QuizService {
         quiz.setStartDate(createQuizPayload.getStartDate());
         quiz.setEndDate(createQuizPayload.getEndDate());
         quizRepository.save(quiz);
+        quizzesVersion.incrementAndGet();
         return modelMapper.fromQuizToQuizDto(quiz);
 
     }
@@ -81,7 +92,9 @@ public class QuizService {
     public QuizDto changeStatus(Long id) {
         Quiz quiz = quizRepository.findById(id).orElseThrow(() -> new NullPointerException("quiz does not exist"));
         quiz.setActive(!quiz.isActive());
-        return modelMapper.fromQuizToQuizDto(quizRepository.save(quiz));
+        quiz = quizRepository.save(quiz);
+        quizzesVersion.incrementAndGet();
+        return modelMapper.fromQuizToQuizDto(quiz);
     }
 
     public QuizDto createQuiz(CreateQuizPayload createQuizPayload) {
@@ -94,7 +107,9 @@ public class QuizService {
                 .isActive(createQuizPayload.isActive())
                 .build();
 
-        return modelMapper.fromQuizToQuizDto(quizRepository.save(quiz));
+        quiz = quizRepository.save(quiz);
+        quizzesVersion.incrementAndGet();
+        return modelMapper.fromQuizToQuizDto(quiz);
     }
 
     public AnswerDto addAnswer(Long questionId, CreateAnswerPayload createAnswerPayload) {
@@ -105,7 +120,9 @@ public class QuizService {
                 .imgUrl(createAnswerPayload.getImgUrl())
                 .isCorrect(createAnswerPayload.isCorrect())
                 .build();
-        return modelMapper.fromAnswerToAnswerDto(answerRepository.saveAndFlush(answer));
+        answer = answerRepository.saveAndFlush(answer);
+        quizzesVersion.incrementAndGet();
+        return modelMapper.fromAnswerToAnswerDto(answer);
     }
 
     public QuestionDto addQuestion(Long quizId, CreateQuestionPayload createQuestionPayload) {
@@ -115,7 +132,9 @@ public class QuizService {
                 .text(createQuestionPayload.getText())
                 .imgUrl(createQuestionPayload.getImgUrl())
                 .build();
-        return modelMapper.fromQuestionToQuestionDto(questionRepository.saveAndFlush(question));
+        question = questionRepository.saveAndFlush(question);
+        quizzesVersion.incrementAndGet();
+        return modelMapper.fromQuestionToQuestionDto(question);
     }
 
     public AnswerDto updateAnswer(Long questionId, Long answerId, CreateAnswerPayload createAnswerPayload) {
@@ -127,6 +146,7 @@ public class QuizService {
         answer.setImgUrl(createAnswerPayload.getImgUrl());
         questionRepository.save(question);
         answerRepository.save(answer);
+        quizzesVersion.incrementAndGet();
         return modelMapper.fromAnswerToAnswerDto(answer);
     }
 
@@ -134,6 +154,7 @@ public class QuizService {
         Quiz quiz = quizRepository.findById(quizId).orElseThrow(() -> new NullPointerException("Quiz does not exist"));
         Question question = questionRepository.findById(id).orElseThrow(() -> new NullPointerException("Question does not exist"));
         questionRepository.delete(question);
+        quizzesVersion.incrementAndGet();
         return modelMapper.fromQuizToQuizDto(quiz);
     }
 
@@ -1,7 +1,6 @@
 package com.app.service;
 
 import com.app.model.Product;
-import com.app.model.Order;
 import com.app.model.Report;
 import com.app.model.dto.ReportDto;
 import com.app.model.modelMappers.ModelMapper;
@@ -11,10 +10,10 @@ import com.app.repository.ReportRepository;
 import com.app.repository.UserRepository;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
 
@@ -25,26 +24,28 @@ public class StatisticService {
     private ReportRepository reportRepository;
     private ModelMapper modelMapper;
     private UserRepository userRepository;
+    private OrderArchiveService orderArchiveService;
 
-    public StatisticService(OrderRepository orderRepository, ProductRepository productRepository, ReportRepository reportRepository, ModelMapper modelMapper, UserRepository userRepository) {
+    public StatisticService(OrderRepository orderRepository, ProductRepository productRepository, ReportRepository reportRepository, ModelMapper modelMapper, UserRepository userRepository, OrderArchiveService orderArchiveService) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.reportRepository = reportRepository;
         this.modelMapper = modelMapper;
         this.userRepository = userRepository;
+        this.orderArchiveService = orderArchiveService;
     }
 
+    /**
+     * Average minutes from start to completion over live and archived orders, summed up by the database.
+     */
     public Long realizationOrderTime() {
-        List<LocalDateTime> startedTimeOrder = orderRepository.findAll().stream().filter(order -> order.getStartedTime() != null).map(Order::getStartedTime).collect(Collectors.toList());
-        List<LocalDateTime> completedTimeOrder = orderRepository.findAll().stream().filter(order -> order.getCompleteTime() != null).map(Order::getCompleteTime).collect(Collectors.toList());
-        long elapsedMinutes = 0;
-        for (LocalDateTime startDate : startedTimeOrder) {
-            for (LocalDateTime endDate : completedTimeOrder) {
-                elapsedMinutes = Duration.between(endDate, startDate).toMinutes();
-            }
-        }
-        elapsedMinutes = elapsedMinutes / completedTimeOrder.size();
-        return elapsedMinutes;
+        OrderRepository.CompletionTotals live = orderRepository.sumCompletionTimes();
+        Optional<OrderRepository.CompletionTotals> archived = orderArchiveService.getCompletionTotals();
+        long orders = live.getOrders() + archived.map(OrderRepository.CompletionTotals::getOrders).orElse(0L);
+        if (orders == 0)
+            return 0L;
+        long seconds = live.getSeconds() + archived.map(OrderRepository.CompletionTotals::getSeconds).orElse(0L);
+        return seconds / 60 / orders;
     }
 
     public ReportDto createNewReport() {
@@ -90,8 +91,8 @@ public class StatisticService {
 
     public Report updateReportData(Report report) {
         report.getAvgBeerPrice().add(calculateAvgBeerPrice());
-        report.setOrders(orderRepository.findAll().size());
-        report.setUsers(userRepository.findAll().size());
+        report.setOrders((int) (orderRepository.count() + orderArchiveService.count()));
+        report.setUsers((int) userRepository.count());
         reportRepository.saveAndFlush(report);
         return report;
     }
@@ -116,6 +117,21 @@ public class StatisticService {
         return reportRepository.findAll().stream().map(modelMapper::fromReportToReportDto).filter(report -> report.getEnd() != null).sorted(Comparator.comparing(ReportDto::getStart).reversed()).collect(Collectors.toList());
     }
 
+    /**
+     * Tag of the closed reports list; it only changes when another report is closed.
+     */
+    public String getClosedReportsTag() {
+        ReportRepository.ClosedReports closed = reportRepository.findClosedReports();
+        return "reports-" + closed.getTotal() + "-" + closed.getLastId();
+    }
+
+    /**
+     * Tag of a single report, only given out once the report is closed and can no longer change.
+     */
+    public String getReportTag(Long id) {
+        return reportRepository.existsByIdAndEndIsNotNull(id) ? "report-" + id : null;
+    }
+
     public ReportDto getReportById(Long id) {
         return modelMapper.fromReportToReportDto(reportRepository.findById(id).orElseThrow(NullPointerException::new));
     }
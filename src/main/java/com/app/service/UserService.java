@@ -106,12 +106,10 @@ public class UserService {
             throw new NullPointerException("User id or Paypal data is null");
         }
         double amountToAdd = 0;
-        User user = userRepository.findById(id).orElseThrow(NullPointerException::new);
-        UserDto userDto = modelMapper.fromUserToUserDto(user);
         for (Transactions p : payPalPayload.getTransactions()) {
             amountToAdd = p.getAmount().getTotal() * 2; // magic number 1$ = 2 kufle maybe in future Admin could change 1$ = x Kufle
         }
-        userDto.setBalance(userDto.getBalance() + amountToAdd);
-        userRepository.save(modelMapper.fromUserDtoToUser(userDto));
+        if (userRepository.creditBalance(id, amountToAdd) == 0)
+            throw new NullPointerException();
     }
 }
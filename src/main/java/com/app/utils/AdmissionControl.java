@@ -0,0 +1,112 @@
+package com.app.utils;
+
+import com.app.model.AdmissionClass;
+import com.app.payloads.responses.AdmissionPayload;
+import com.app.queue.OrderQueue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class AdmissionControl {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedInFlight = new LongAdder();
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+    @Value("${admission.max-queue-depth:40}")
+    private int maxQueueDepth;
+    @Value("${admission.max-in-flight:64}")
+    private int maxInFlight;
+    @Value("${admission.paid-priority:true}")
+    private boolean paidPriority;
+    @Value("${admission.paid-reserved-in-flight:8}")
+    private int paidReservedInFlight;
+    @Value("${admission.in-flight-retry-after-seconds:1}")
+    private long inFlightRetryAfterSeconds;
+    @Value("${admission.max-retry-after-seconds:120}")
+    private long maxRetryAfterSeconds;
+
+    private OrderQueue orderQueue;
+
+    public AdmissionControl(OrderQueue orderQueue) {
+        this.orderQueue = orderQueue;
+    }
+
+    /**
+     * Takes an in-flight slot for the request or explains why it was refused. An admitted request must be
+     * followed by exactly one {@link #release()}.
+     */
+    public Optional<Rejection> tryAcquire(AdmissionClass admissionClass) {
+        if (!enabled) {
+            inFlight.incrementAndGet();
+            admitted.increment();
+            return Optional.empty();
+        }
+        boolean priority = paidPriority && admissionClass == AdmissionClass.PAID;
+        int depth = orderQueue.getDepth();
+        if (maxQueueDepth > 0 && depth >= maxQueueDepth && (admissionClass == AdmissionClass.INTAKE || admissionClass == AdmissionClass.PAID && !priority)) {
+            rejectedQueueFull.increment();
+            return Optional.of(new Rejection("Order queue is full", retryAfter(orderQueue.getDrainSeconds(depth - maxQueueDepth + 1))));
+        }
+        int limit = priority ? maxInFlight : Math.max(1, maxInFlight - (paidPriority ? paidReservedInFlight : 0));
+        for (int current = inFlight.get(); ; current = inFlight.get()) {
+            if (current >= limit) {
+                rejectedInFlight.increment();
+                return Optional.of(new Rejection("Too many requests in progress", inFlightRetryAfterSeconds));
+            }
+            if (inFlight.compareAndSet(current, current + 1))
+                break;
+        }
+        admitted.increment();
+        return Optional.empty();
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public AdmissionPayload getStatistics() {
+        int depth = orderQueue.getDepth();
+        int current = inFlight.get();
+        double queueSaturation = maxQueueDepth > 0 ? (double) depth / maxQueueDepth : 0;
+        return AdmissionPayload.builder()
+                .enabled(enabled)
+                .queueDepth(depth)
+                .maxQueueDepth(maxQueueDepth)
+                .inFlight(current)
+                .maxInFlight(maxInFlight)
+                .saturation(Math.max(queueSaturation, (double) current / maxInFlight))
+                .admitted(admitted.sum())
+                .rejectedQueueFull(rejectedQueueFull.sum())
+                .rejectedInFlight(rejectedInFlight.sum())
+                .build();
+    }
+
+    private long retryAfter(double seconds) {
+        return Math.max(1, Math.min(maxRetryAfterSeconds, (long) Math.ceil(seconds)));
+    }
+
+    public static class Rejection {
+        private final String reason;
+        private final long retryAfterSeconds;
+
+        private Rejection(String reason, long retryAfterSeconds) {
+            this.reason = reason;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
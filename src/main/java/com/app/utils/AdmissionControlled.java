@@ -0,0 +1,16 @@
+package com.app.utils;
+
+import com.app.model.AdmissionClass;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks an endpoint as subject to {@link AdmissionControl}. INTAKE requests grow the queue and are refused once it
+ * is too deep, PAID requests turn an already paid cart into an order, READ requests only poll.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AdmissionControlled {
+    AdmissionClass value();
+}
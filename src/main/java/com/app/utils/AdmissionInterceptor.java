@@ -0,0 +1,55 @@
+package com.app.utils;
+
+import com.app.payloads.responses.ApiPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+    private static final String ADMITTED = AdmissionInterceptor.class.getName() + ".ADMITTED";
+
+    private AdmissionControl admissionControl;
+    private ObjectMapper objectMapper;
+
+    public AdmissionInterceptor(AdmissionControl admissionControl, ObjectMapper objectMapper) {
+        this.admissionControl = admissionControl;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod))
+            return true;
+        AdmissionControlled admission = ((HandlerMethod) handler).getMethodAnnotation(AdmissionControlled.class);
+        if (admission == null)
+            return true;
+        Optional<AdmissionControl.Rejection> rejection = admissionControl.tryAcquire(admission.value());
+        if (!rejection.isPresent()) {
+            request.setAttribute(ADMITTED, Boolean.TRUE);
+            return true;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(rejection.get().getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiPayload(false, rejection.get().getReason()));
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED) != null) {
+            request.removeAttribute(ADMITTED);
+            admissionControl.release();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.app.utils;
+
+import com.app.exception.ConcurrentUpdateException;
+import com.app.payloads.responses.ConflictStatisticsPayload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Component
+public class ConcurrencyRetry {
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    @Value("${retry.max-attempts:5}")
+    private int maxAttempts;
+    @Value("${retry.backoff-millis:5}")
+    private long backoffMillis;
+    @Value("${retry.max-backoff-millis:200}")
+    private long maxBackoffMillis;
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        Counters operationCounters = counters.computeIfAbsent(operation, name -> new Counters());
+        operationCounters.executions.increment();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                operationCounters.conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    operationCounters.exhausted.increment();
+                    throw new ConcurrentUpdateException();
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    public List<ConflictStatisticsPayload> getStatistics() {
+        return counters.entrySet().stream()
+                .map(entry -> {
+                    long executions = entry.getValue().executions.sum();
+                    long conflicts = entry.getValue().conflicts.sum();
+                    return ConflictStatisticsPayload.builder()
+                            .operation(entry.getKey())
+                            .executions(executions)
+                            .conflicts(conflicts)
+                            .exhausted(entry.getValue().exhausted.sum())
+                            .conflictRate(executions == 0 ? 0.0 : (double) conflicts / executions)
+                            .build();
+                })
+                .sorted(Comparator.comparing(ConflictStatisticsPayload::getOperation))
+                .collect(Collectors.toList());
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(Math.min(backoffMillis << (attempt - 1), maxBackoffMillis)) + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException();
+        }
+    }
+
+    private static class Counters {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+    }
+}
@@ -0,0 +1,69 @@
+package com.app.utils;
+
+import com.app.payloads.responses.ConditionalGetPayload;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Answers reads carrying a matching {@code If-None-Match} with 304 before the body is built, so a client that
+ * already has the current data costs neither mapping nor serialization. Tags must be computed before the body
+ * is loaded; a tag read before a change can then only ever label newer data, never the other way round.
+ */
+@Component
+public class ConditionalGet {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public <T> ResponseEntity<T> respond(String endpoint, WebRequest request, String etag, Supplier<T> body) {
+        Counters endpointCounters = counters.computeIfAbsent(endpoint, name -> new Counters());
+        endpointCounters.requests.increment();
+        if (etag == null)
+            return ResponseEntity.ok(body.get());
+        if (request.checkNotModified(etag)) {
+            endpointCounters.notModified.increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body.get());
+    }
+
+    /**
+     * Tag for data versioned by an in-memory counter. The counter starts over on restart, so the tag also carries
+     * the start of this instance to keep it from matching anything handed out before.
+     */
+    public String versionTag(String name, long version) {
+        return name + "-" + instance + "-" + version;
+    }
+
+    public List<ConditionalGetPayload> getStatistics() {
+        return counters.entrySet().stream()
+                .map(entry -> {
+                    long requests = entry.getValue().requests.sum();
+                    long notModified = entry.getValue().notModified.sum();
+                    return ConditionalGetPayload.builder()
+                            .endpoint(entry.getKey())
+                            .requests(requests)
+                            .notModified(notModified)
+                            .hitRatio(requests == 0 ? 0.0 : (double) notModified / requests)
+                            .build();
+                })
+                .sorted(Comparator.comparing(ConditionalGetPayload::getEndpoint))
+                .collect(Collectors.toList());
+    }
+
+    private static class Counters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder notModified = new LongAdder();
+    }
+}
@@ -0,0 +1,118 @@
+package com.app.utils;
+
+import com.app.exception.IdempotencyKeyReusedException;
+import com.app.exception.IdempotentRequestInProgressException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Component
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    @Value("${idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+    @Value("${idempotency.await-seconds:30}")
+    private long awaitSeconds;
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object request, Supplier<T> action) {
+        if (key == null || key.isEmpty())
+            return action.get();
+        String id = scope + ":" + key;
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            long now = System.currentTimeMillis();
+            evict(now);
+            entry = entries.get(id);
+            if (entry == null) {
+                entry = new Entry(request, now + ttlMinutes * 60000);
+                entries.put(id, entry);
+                owner = true;
+            }
+        }
+        if (!Objects.equals(entry.request, request))
+            throw new IdempotencyKeyReusedException();
+        if (!owner)
+            return (T) await(entry);
+        try {
+            T result = action.get();
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            entry.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (!entry.result.isDone())
+                entry.result.completeExceptionally(new IllegalStateException("Request " + id + " ended without a result"));
+            if (entry.result.isCompletedExceptionally()) {
+                synchronized (entries) {
+                    entries.remove(id, entry);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Drops expired entries, and the eldest ones beyond {@code maxEntries}, but never one still in flight: its
+     * duplicates would otherwise run the action a second time.
+     */
+    private void evict(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            if (eldest.expiresAt > now && entries.size() < maxEntries)
+                break;
+            if (eldest.result.isDone())
+                iterator.remove();
+        }
+    }
+
+    private Object await(Entry entry) {
+        try {
+            return entry.result.get(awaitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotentRequestInProgressException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static class Entry {
+        private final Object request;
+        private final long expiresAt;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(Object request, long expiresAt) {
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.app;
+
+import com.app.model.AdmissionClass;
+import com.app.model.Product;
+import com.app.model.User;
+import com.app.payloads.requests.AddProductToOrderPayload;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import com.app.queue.OrderQueue;
+import com.app.service.CartService;
+import com.app.service.OrderService;
+import com.app.utils.AdmissionControl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.LinkedList;
+import java.util.Optional;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"spring.profiles.active=test", "admission.max-queue-depth=1", "admission.max-in-flight=2", "admission.paid-reserved-in-flight=1"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AdmissionControlIntegrationTest {
+
+    @Autowired
+    private AdmissionControl admissionControl;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private OrderQueue orderQueue;
+
+    @After
+    public void clearQueue() {
+        orderQueue.getOrders().forEach(order -> orderQueue.remove(order.getId()));
+    }
+
+    @Test
+    public void inFlightLimitKeepsHeadroomForPaidOrders() {
+        Assert.assertFalse(admissionControl.tryAcquire(AdmissionClass.INTAKE).isPresent());
+        Optional<AdmissionControl.Rejection> rejection = admissionControl.tryAcquire(AdmissionClass.READ);
+        Assert.assertTrue(rejection.isPresent());
+        Assert.assertEquals(1, rejection.get().getRetryAfterSeconds());
+        Assert.assertFalse(admissionControl.tryAcquire(AdmissionClass.PAID).isPresent());
+        Assert.assertTrue(admissionControl.tryAcquire(AdmissionClass.PAID).isPresent());
+        Assert.assertEquals(1.0, admissionControl.getStatistics().getSaturation(), 0.0001);
+        admissionControl.release();
+        admissionControl.release();
+        Assert.assertEquals(0, admissionControl.getStatistics().getInFlight());
+    }
+
+    @Test
+    public void fullQueueRejectsNewOrdersButAdmitsPaidOnes() {
+        Product product = productRepository.save(Product.builder().brand("Aaa").description("Adesc").quantity(10).price(10.0).productType("BEER").orderItems(new LinkedList<>()).build());
+        Long userId = userRepository.save(User.builder().email("admission@test.com").username("admission").password("123").build()).getId();
+        cartService.order(userId, AddProductToOrderPayload.builder().productId(product.getId()).quantity(1).build());
+        orderService.confirmOrder(userId, 2L);
+        long rejectedBefore = admissionControl.getStatistics().getRejectedQueueFull();
+
+        Optional<AdmissionControl.Rejection> rejection = admissionControl.tryAcquire(AdmissionClass.INTAKE);
+        Assert.assertTrue(rejection.isPresent());
+        Assert.assertTrue(rejection.get().getRetryAfterSeconds() >= 1);
+        Assert.assertFalse(admissionControl.tryAcquire(AdmissionClass.READ).isPresent());
+        admissionControl.release();
+        Assert.assertFalse(admissionControl.tryAcquire(AdmissionClass.PAID).isPresent());
+        admissionControl.release();
+        Assert.assertEquals(rejectedBefore + 1, admissionControl.getStatistics().getRejectedQueueFull());
+        Assert.assertEquals(1.0, admissionControl.getStatistics().getSaturation(), 0.0001);
+    }
+}
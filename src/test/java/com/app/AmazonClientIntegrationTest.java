@@ -0,0 +1,67 @@
+package com.app;
+
+import com.app.service.AmazonClient;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Random;
+
+/**
+ * Runs against a local S3-compatible server, e.g. one started on port 9090 with a public {@code beerlab-test}
+ * bucket: {@code -Ds3.fake=true -DendpointUrl=http://localhost:9090 -DbucketName=beerlab-test}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"spring.profiles.active=test", "s3.upload.multipart-threshold-bytes=5242880"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class AmazonClientIntegrationTest {
+
+    @Autowired
+    private AmazonClient amazonClient;
+
+    @Before
+    public void init() {
+        Assume.assumeTrue("run with -Ds3.fake=true against a local S3-compatible endpoint", Boolean.getBoolean("s3.fake"));
+    }
+
+    @Test
+    public void smallFileIsUploadedWithOnePut() throws Exception {
+        assertRoundTrip(64 * 1024);
+    }
+
+    @Test
+    public void largeFileIsUploadedInParts() throws Exception {
+        assertRoundTrip(12 * 1024 * 1024 + 17);
+    }
+
+    @Test
+    public void sameFilenameNeverCollides() {
+        MockMultipartFile file = new MockMultipartFile("file", "same name.png", "image/png", new byte[]{1, 2, 3});
+        Assert.assertNotEquals(amazonClient.uploadFile(file), amazonClient.uploadFile(file));
+    }
+
+    private void assertRoundTrip(int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        String url = amazonClient.uploadFile(new MockMultipartFile("file", "../image.png", "image/png", content));
+        Assert.assertFalse(url.contains(".."));
+        try (InputStream input = new URL(url).openStream()) {
+            byte[] buffer = new byte[8192];
+            int offset = 0;
+            for (int read; (read = input.read(buffer)) != -1; offset += read)
+                for (int i = 0; i < read; i++)
+                    Assert.assertEquals(content[offset + i], buffer[i]);
+            Assert.assertEquals(size, offset);
+        }
+        amazonClient.deleteFileFromS3Bucket(url);
+    }
+}
@@ -0,0 +1,78 @@
+package com.app;
+
+import com.app.exception.IdempotentRequestInProgressException;
+import com.app.utils.IdempotencyStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdempotencyStoreTest {
+    private IdempotencyStore store;
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxEntries", 1);
+        ReflectionTestUtils.setField(store, "awaitSeconds", 1L);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @Test
+    public void duplicateGivesUpWhileFirstRequestIsStillRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Future<String> first = executor.submit(() -> store.execute("scope", "key", "request", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(finish);
+            return "done";
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        store.execute("scope", "other", "request", () -> "evicts nothing in flight");
+        try {
+            store.execute("scope", "key", "request", () -> "again");
+            Assert.fail();
+        } catch (IdempotentRequestInProgressException e) {
+            Assert.assertEquals(1, runs.get());
+        }
+
+        finish.countDown();
+        Assert.assertEquals("done", first.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, runs.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void failedRequestIsForgottenEvenOnError() {
+        try {
+            store.execute("scope", "key", "request", () -> {
+                throw new AssertionError("boom");
+            });
+            Assert.fail();
+        } catch (AssertionError e) {
+            Assert.assertEquals("boom", e.getMessage());
+        }
+        Assert.assertEquals("retried", store.execute("scope", "key", "request", () -> "retried"));
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.app;
+
+import com.app.model.*;
+import com.app.model.dto.OrderDto;
+import com.app.payloads.responses.OrderPagePayload;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import com.app.service.OrderArchiveService;
+import com.app.service.OrderHistoryService;
+import com.app.service.OrderService;
+import com.app.service.StatisticService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.profiles.active=test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OrderArchiveIntegrationTest {
+    private static final int ORDERS = 10;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private StatisticService statisticService;
+
+    @Test
+    public void archivedOrdersStayInUserHistory() {
+        User user = userRepository.save(User.builder().email("archive@test.com").username("archive").password("123").build());
+        Product beer = productRepository.save(Product.builder().brand("Aaa").description("Adesc").quantity(100).price(10.0).productType("BEER").orderItems(new LinkedList<>()).build());
+        Product wings = productRepository.save(Product.builder().brand("Bbb").description("Bdesc").quantity(100).price(15.0).productType("SPICY_WINGS").orderItems(new LinkedList<>()).build());
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder().user(user).status(OrderStatus.COMPLETED).startedTime(LocalDateTime.now()).totalPrice(25.0).orderItems(new LinkedList<>()).build();
+            order.getOrderItems().add(OrderItem.builder().order(order).product(beer).unitPrice(10.0).quantity(1).build());
+            order.getOrderItems().add(OrderItem.builder().order(order).product(wings).unitPrice(15.0).quantity(1).build());
+            orderRepository.save(order);
+        }
+
+        LocalDateTime completed = LocalDateTime.now().minusDays(60);
+        List<Order> old = orderRepository.findByUserId(user.getId()).subList(0, 4);
+        old.forEach(order -> {
+            order.setStartedTime(completed.minusMinutes(30));
+            order.setCompleteTime(completed);
+        });
+        orderRepository.saveAll(old);
+        Assert.assertEquals(Long.valueOf(30), statisticService.realizationOrderTime());
+
+        Assert.assertEquals(4, orderArchiveService.archiveClosedOrders().getLastArchivedOrders());
+        Assert.assertEquals(Long.valueOf(30), statisticService.realizationOrderTime());
+        Assert.assertEquals(ORDERS - 4, orderRepository.findByUserId(user.getId()).size());
+
+        List<OrderDto> orders = orderService.getAllUserOrders(user.getId());
+        Assert.assertEquals(ORDERS, orders.size());
+        orders.forEach(order -> Assert.assertEquals(2, order.getOrderItemsDto().size()));
+        Assert.assertEquals(2, orderService.getOrder(old.get(0).getId()).getOrderItemsDto().size());
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        do {
+            OrderPagePayload page = orderHistoryService.getOrdersPage(user.getId(), null, null, null, cursor, 4);
+            page.getOrders().forEach(order -> Assert.assertTrue(seen.add(order.getId())));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        Assert.assertEquals(ORDERS, seen.size());
+        Assert.assertEquals(0, orderArchiveService.archiveClosedOrders().getLastArchivedOrders());
+
+        List<Order> recent = orderRepository.findByUserId(user.getId()).subList(0, 2);
+        recent.forEach(order -> order.setCompleteTime(order.getStartedTime().plusMinutes(12)));
+        orderRepository.saveAll(recent);
+        Assert.assertEquals(Long.valueOf((4 * 30 + 2 * 12) / 6), statisticService.realizationOrderTime());
+    }
+}
@@ -0,0 +1,93 @@
+package com.app;
+
+import com.app.model.OrderStatus;
+import com.app.model.Product;
+import com.app.model.User;
+import com.app.payloads.domain.Amount;
+import com.app.payloads.domain.Transactions;
+import com.app.payloads.requests.AddProductToOrderPayload;
+import com.app.payloads.requests.PayPalPayload;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import com.app.service.CartService;
+import com.app.service.OrderService;
+import com.app.service.UserService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.profiles.active=test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class OrderConfirmationStressTest {
+    private static final int ROUNDS = 20;
+    private static final int CONFIRMS = 4;
+    private static final int TOP_UPS = 4;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    public void parallelConfirmsAndTopUpsKeepBalanceConsistent() throws Exception {
+        Product product = productRepository.save(Product.builder().brand("Aaa").description("Adesc").quantity(1000).price(10.0).productType("BEER").orderItems(new LinkedList<>()).build());
+        PayPalPayload topUp = PayPalPayload.builder().transactions(new Transactions[]{new Transactions(new Amount(5.0))}).build();
+        ExecutorService executor = Executors.newFixedThreadPool(CONFIRMS + TOP_UPS);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Long userId = userRepository.save(User.builder().email("stress" + round + "@test.com").username("stress").password("123").balance(100.0).build()).getId();
+            cartService.order(userId, AddProductToOrderPayload.builder().productId(product.getId()).quantity(3).build());
+
+            AtomicInteger confirmed = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new LinkedList<>();
+            for (int i = 0; i < CONFIRMS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.confirmOrder(userId, 1L);
+                        confirmed.incrementAndGet();
+                    } catch (NullPointerException e) {
+                        // cart was already confirmed by a parallel request
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < TOP_UPS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    userService.addBalanceForUser(userId, topUp);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+
+            Assert.assertEquals(1, confirmed.get());
+            Assert.assertEquals(100.0 + TOP_UPS * 10.0 - 30.0, userRepository.findById(userId).get().getBalance(), 0.0001);
+            Assert.assertEquals(1, orderRepository.findAllByUserIdAndStatus(userId, OrderStatus.QUEUED).size());
+            Assert.assertFalse(orderRepository.findTotalByUserIdAndStatus(userId, OrderStatus.NOT_PAID).isPresent());
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,121 @@
+package com.app;
+
+import com.app.model.*;
+import com.app.model.dto.OrderDto;
+import com.app.payloads.responses.OrderPagePayload;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import com.app.service.OrderHistoryService;
+import com.app.service.OrderService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"spring.profiles.active=test", "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.app.StatementCounter"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OrderFetchPlanIntegrationTest {
+    private static final int ORDERS = 10;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @Before
+    public void init() {
+        String name = "fetch" + UUID.randomUUID();
+        user = userRepository.save(User.builder().email(name + "@test.com").username(name).password("123").build());
+        Product beer = productRepository.save(Product.builder().brand("Aaa").description("Adesc").quantity(100).price(10.0).productType("BEER").orderItems(new LinkedList<>()).build());
+        Product wings = productRepository.save(Product.builder().brand("Bbb").description("Bdesc").quantity(100).price(15.0).productType("SPICY_WINGS").orderItems(new LinkedList<>()).build());
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder().user(user).status(OrderStatus.COMPLETED).startedTime(LocalDateTime.now()).totalPrice(25.0).orderItems(new LinkedList<>()).build();
+            order.getOrderItems().add(OrderItem.builder().order(order).product(beer).unitPrice(10.0).quantity(1).build());
+            order.getOrderItems().add(OrderItem.builder().order(order).product(wings).unitPrice(15.0).quantity(1).build());
+            orderRepository.save(order);
+        }
+        StatementCounter.reset();
+    }
+
+    @Test
+    public void userHistoryIsLoadedWithOneStatement() {
+        List<OrderDto> orders = orderService.getAllUserOrders(user.getId());
+        Assert.assertEquals(ORDERS, orders.size());
+        orders.forEach(order -> Assert.assertEquals(2, order.getOrderItemsDto().size()));
+        Assert.assertEquals(1, StatementCounter.count());
+    }
+
+    @Test
+    public void allOrdersAreLoadedWithOneStatement() {
+        long orders = orderRepository.count();
+        StatementCounter.reset();
+        Assert.assertEquals(orders, orderService.getAllOrders().size());
+        Assert.assertEquals(1, StatementCounter.count());
+    }
+
+    @Test
+    public void historyPagesFollowCursorWithTwoStatementsEach() {
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            StatementCounter.reset();
+            OrderPagePayload page = orderHistoryService.getOrdersPage(user.getId(), null, null, null, cursor, 4);
+            Assert.assertEquals(2, StatementCounter.count());
+            page.getOrders().forEach(order -> Assert.assertTrue(seen.add(order.getId())));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        Assert.assertEquals(3, pages);
+        Assert.assertEquals(ORDERS, seen.size());
+    }
+
+    @Test
+    public void historyWalkReturnsEveryOrderOnce() {
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now().plusDays(1);
+        Set<Long> seen = new HashSet<>();
+        LocalDateTime previous = null;
+        String cursor = null;
+        do {
+            OrderPagePayload page = orderHistoryService.getOrdersPage(user.getId(), OrderStatus.COMPLETED, from, to, cursor, 3);
+            for (OrderDto order : page.getOrders()) {
+                Assert.assertTrue(seen.add(order.getId()));
+                Assert.assertTrue(previous == null || !order.getStartedTime().isAfter(previous));
+                previous = order.getStartedTime();
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        Assert.assertEquals(ORDERS, seen.size());
+        Assert.assertTrue(orderHistoryService.getOrdersPage(user.getId(), OrderStatus.COMPLETED, to, null, null, 3).getOrders().isEmpty());
+    }
+
+    @Test
+    public void singleOrderIsLoadedWithOneStatement() {
+        Long id = orderService.getAllOrders().get(0).getId();
+        StatementCounter.reset();
+        Assert.assertEquals(2, orderService.getOrder(id).getOrderItemsDto().size());
+        Assert.assertEquals(1, StatementCounter.count());
+    }
+}
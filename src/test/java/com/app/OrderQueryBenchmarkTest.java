@@ -0,0 +1,111 @@
+package com.app;
+
+import com.app.model.OrderStatus;
+import com.app.model.User;
+import com.app.queue.OrderQueue;
+import com.app.repository.OrderRepository;
+import com.app.repository.UserRepository;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"spring.profiles.active=test", "logging.level.org.hibernate.SQL=INFO"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class OrderQueryBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(OrderQueryBenchmarkTest.class);
+    private static final int USERS = 500;
+    private static final int RUNS = 20;
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private int seeded;
+
+    @Before
+    public void init() {
+        Assume.assumeTrue("run with -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+        for (int i = 0; i < USERS; i++)
+            userIds.add(userRepository.save(User.builder().email("bench" + i + "@test.com").username("bench" + i).password("123").build()).getId());
+    }
+
+    @Test
+    public void queueAndCartLookupsByDatasetSize() {
+        for (String size : System.getProperty("benchmark.sizes", "10000,100000,1000000").split(",")) {
+            seed(Integer.parseInt(size.trim()));
+            dropIndexes();
+            double queueBefore = measure(() -> orderRepository.findAllByStatusIn(OrderQueue.QUEUE_STATUSES));
+            double cartBefore = measure(() -> orderRepository.findByUserIdAndStatus(userIds.get(USERS / 2), OrderStatus.NOT_PAID));
+            createIndexes();
+            double queueAfter = measure(() -> orderRepository.findAllByStatusIn(OrderQueue.QUEUE_STATUSES));
+            double cartAfter = measure(() -> orderRepository.findByUserIdAndStatus(userIds.get(USERS / 2), OrderStatus.NOT_PAID));
+            log.info(String.format("%,d orders: queue %.2f ms -> %.2f ms, cart %.2f ms -> %.2f ms",
+                    seeded, queueBefore, queueAfter, cartBefore, cartAfter));
+        }
+    }
+
+    private void seed(int total) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        List<Object[]> batch = new ArrayList<>();
+        while (seeded < total) {
+            long userId = userIds.get(seeded % USERS);
+            OrderStatus status;
+            if (seeded < USERS)
+                status = OrderStatus.NOT_PAID;
+            else if (random.nextInt(1000) < 5)
+                status = random.nextBoolean() ? OrderStatus.QUEUED : OrderStatus.INPROGRESS;
+            else
+                status = OrderStatus.CLOSED;
+            Timestamp startedTime = status == OrderStatus.NOT_PAID ? null : Timestamp.valueOf(start.plusSeconds(seeded * 10L));
+            batch.add(new Object[]{userId, status.name(), startedTime, 10.0});
+            seeded++;
+            if (batch.size() == 10000) {
+                insert(batch);
+                batch.clear();
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into \"Order\" (user_id, status, started_time, total_price) values (?, ?, ?, ?)", batch);
+    }
+
+    private void dropIndexes() {
+        jdbcTemplate.execute("drop index if exists idx_order_status_started_time");
+        jdbcTemplate.execute("drop index if exists idx_order_user_status");
+    }
+
+    private void createIndexes() {
+        jdbcTemplate.execute("create index idx_order_status_started_time on \"Order\" (status, started_time, id)");
+        jdbcTemplate.execute("create index idx_order_user_status on \"Order\" (user_id, status)");
+    }
+
+    private double measure(Runnable query) {
+        query.run();
+        long begin = System.nanoTime();
+        for (int i = 0; i < RUNS; i++)
+            query.run();
+        return (System.nanoTime() - begin) / 1e6 / RUNS;
+    }
+}
@@ -2,15 +2,19 @@ package com.app;
 
 import com.app.model.*;
 import com.app.model.dto.OrderDto;
+import com.app.model.dto.PricingRuleDto;
 import com.app.model.modelMappers.ModelMapper;
 import com.app.payloads.requests.AddProductToOrderPayload;
 import com.app.payloads.requests.LoginPayload;
+import com.app.payloads.requests.MarkBatchPouredPayload;
+import com.app.payloads.requests.PosOrderPayload;
 import com.app.repository.ProductRepository;
 import com.app.repository.OrderRepository;
 import com.app.repository.RoleRepository;
 import com.app.repository.UserRepository;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +34,7 @@ import java.util.stream.Collectors;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -110,12 +115,204 @@ public class OrderRestControllerIntegrationTest {
         Assert.assertEquals(2, orderRepository.findAll().size());
     }
 
+    @Test
+    public void changeOrderInBatchTest() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        List<AddProductToOrderPayload> lines = Arrays.asList(
+                AddProductToOrderPayload.builder().productId(1L).quantity(2).build(),
+                AddProductToOrderPayload.builder().productId(1L).quantity(1).build());
+        mvc.perform(post("/api/order/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", getAuthToken())
+                .content(gsonBuilder.toJson(lines)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderItemsDto.length()").value(1))
+                .andExpect(jsonPath("$.orderItemsDto[0].quantity").value(3))
+                .andExpect(jsonPath("$.totalPrice").value(30.0));
+        Assert.assertEquals(Integer.valueOf(6), productRepository.findById(1L).get().getQuantity());
+    }
+
+    @Test
+    public void queuePositionTest() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        String token = getAuthToken();
+        mvc.perform(post("/api/order")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(AddProductToOrderPayload.builder().productId(1L).quantity(1).build())))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/user/confirm/2")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/order/orderPosition/2")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0"));
+        mvc.perform(get("/api/order/current")
+                .header("X-Auth-Token", token)
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    public void pourBatchTest() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        String token = getAuthToken();
+        mvc.perform(post("/api/order")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(AddProductToOrderPayload.builder().productId(1L).quantity(2).build())))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/user/confirm/2")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/order/current/batches")
+                .header("X-Auth-Token", token)
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].productId").value(1))
+                .andExpect(jsonPath("$[0].quantity").value(2))
+                .andExpect(jsonPath("$[0].orderIds[0]").value(2));
+        mvc.perform(post("/api/order/current/batches")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(MarkBatchPouredPayload.builder().productId(1L).orderIds(Collections.singletonList(2L)).build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(OrderStatus.COMPLETED.toString()))
+                .andExpect(jsonPath("$[0].orderItemsDto[0].poured").value(true));
+        mvc.perform(get("/api/order/current/batches")
+                .header("X-Auth-Token", token)
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    public void stationQueuesTest() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        String token = getAuthToken();
+        Product wings = productRepository.save(Product.builder().brand("Wings").description("Hot").quantity(10).price(20.0).productType("SPICY_WINGS").orderItems(new LinkedList<>()).build());
+        mvc.perform(post("/api/order/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(Arrays.asList(
+                        AddProductToOrderPayload.builder().productId(1L).quantity(1).build(),
+                        AddProductToOrderPayload.builder().productId(wings.getId()).quantity(1).build()))))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/user/confirm/2")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/order/stations/SPICY_WINGS")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].orderItemsDto.length()").value(1));
+        mvc.perform(post("/api/order/stations/SPICY_WINGS/2/start")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(OrderStatus.INPROGRESS.toString()));
+        mvc.perform(post("/api/order/stations/BEER/2/done")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(OrderStatus.INPROGRESS.toString()));
+        mvc.perform(get("/api/order/stations/BEER")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mvc.perform(post("/api/order/stations/SPICY_WINGS/2/done")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(OrderStatus.COMPLETED.toString()));
+        mvc.perform(get("/api/order/stations")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.station == 'SPICY_WINGS')].completed").value(1))
+                .andExpect(jsonPath("$[?(@.station == 'SPICY_WINGS')].depth").value(0));
+    }
+
+    @Test
+    public void posSyncTest() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        userRepository.save(User.builder().email("barman@test.com").username("barman").roles(Collections.singletonList(roleRepository.findByRoleName(RoleName.ROLE_BARMAN).get())).password(new BCryptPasswordEncoder().encode("123")).build());
+        Product unpriced = productRepository.save(Product.builder().brand("Bbb").description("Bdesc").quantity(10).productType("BEER").build());
+        String token = getAuthToken("barman@test.com");
+        List<PosOrderPayload> orders = Arrays.asList(
+                PosOrderPayload.builder().clientId("a").items(Collections.singletonList(AddProductToOrderPayload.builder().productId(1L).quantity(2).build())).build(),
+                PosOrderPayload.builder().clientId("a").items(Collections.singletonList(AddProductToOrderPayload.builder().productId(1L).quantity(2).build())).build(),
+                PosOrderPayload.builder().clientId("b").items(Collections.singletonList(AddProductToOrderPayload.builder().productId(1L).quantity(100).build())).build(),
+                PosOrderPayload.builder().clientId("c").userId(9999L).items(Collections.singletonList(AddProductToOrderPayload.builder().productId(1L).quantity(1).build())).build(),
+                PosOrderPayload.builder().clientId("d").items(Collections.singletonList(AddProductToOrderPayload.builder().productId(unpriced.getId()).quantity(1).build())).build());
+        mvc.perform(post("/api/order/pos/sync")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", getAuthToken())
+                .content(gsonBuilder.toJson(orders)))
+                .andExpect(status().isForbidden());
+        String created = mvc.perform(post("/api/order/pos/sync")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(orders)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(PosSyncStatus.CREATED.toString()))
+                .andExpect(jsonPath("$[1].status").value(PosSyncStatus.DUPLICATE.toString()))
+                .andExpect(jsonPath("$[2].status").value(PosSyncStatus.REJECTED.toString()))
+                .andExpect(jsonPath("$[3].status").value(PosSyncStatus.REJECTED.toString()))
+                .andExpect(jsonPath("$[4].status").value(PosSyncStatus.REJECTED.toString()))
+                .andReturn().getResponse().getContentAsString();
+        Assert.assertEquals(Integer.valueOf(7), productRepository.findById(1L).get().getQuantity());
+        Number orderId = JsonPath.read(created, "$[0].orderId");
+        Assert.assertEquals(OrderStatus.CASH_PAID, orderRepository.findById(orderId.longValue()).get().getStatus());
+
+        mvc.perform(post("/api/order/pos/sync")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(orders.subList(0, 1))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(PosSyncStatus.DUPLICATE.toString()))
+                .andExpect(jsonPath("$[0].orderId").value(orderId.longValue()));
+        Assert.assertEquals(Integer.valueOf(7), productRepository.findById(1L).get().getQuantity());
+    }
+
+    @Test
+    public void pricingRulesAppliedAtConfirmTest() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        String token = getAuthToken();
+        mvc.perform(post("/api/pricing")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(PricingRuleDto.builder().name("Happy hour").type(PricingRuleType.HAPPY_HOUR).productType(ProductTypes.BEER).discountPercent(20.0).build())))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/pricing")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(PricingRuleDto.builder().name("Three for 20").type(PricingRuleType.BUNDLE).productId(1L).bundleQuantity(3).bundlePrice(20.0).build())))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/order")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(gsonBuilder.toJson(AddProductToOrderPayload.builder().productId(1L).quantity(3).build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPrice").value(30.0));
+        mvc.perform(post("/api/user/confirm/2")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderItemsDto[0].unitPrice").value(8.0))
+                .andExpect(jsonPath("$.discount").value(4.0))
+                .andExpect(jsonPath("$.totalPrice").value(20.0));
+    }
+
     private String getAuthToken() throws Exception {
+        return getAuthToken("test@test.com");
+    }
+
+    private String getAuthToken(String email) throws Exception {
         Gson gsonBuilder = new GsonBuilder().create();
         return mvc.perform(post("/api/auth/signin")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(gsonBuilder.toJson(LoginPayload.builder()
-                        .email("test@test.com")
+                        .email(email)
                         .password("123").build()))).andReturn()
                 .getResponse()
                 .getHeader("x-auth-token");
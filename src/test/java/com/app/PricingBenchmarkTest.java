@@ -0,0 +1,86 @@
+package com.app;
+
+import com.app.model.PricingRule;
+import com.app.model.PricingRuleType;
+import com.app.model.ProductTypes;
+import com.app.pricing.CartLine;
+import com.app.pricing.CompiledPricingRules;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PricingBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(PricingBenchmarkTest.class);
+    private static final int PRODUCTS = 200;
+    private static final int CART_LINES = 20;
+    private static final int WARMUP = 200_000;
+    private static final int RUNS = 1_000_000;
+
+    // every priced total ends up here so the JIT cannot drop the measured calls
+    private double sink;
+
+    @Before
+    public void init() {
+        Assume.assumeTrue("run with -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+    }
+
+    @Test
+    public void cartPricingByRuleCount() {
+        Random random = new Random(42);
+        List<CartLine> cart = new ArrayList<>();
+        for (int i = 0; i < CART_LINES; i++)
+            cart.add(new CartLine((long) random.nextInt(PRODUCTS), randomType(random).name(), 5 + random.nextInt(20), 1 + random.nextInt(4)));
+        for (String size : System.getProperty("benchmark.rules", "10,100,500,1000").split(",")) {
+            CompiledPricingRules rules = new CompiledPricingRules(rules(random, Integer.parseInt(size.trim())));
+            measure(rules, cart);
+            log.info(String.format("%d rules, %d cart lines: %.2f us per cart", rules.size(), CART_LINES, measure(rules, cart)));
+        }
+    }
+
+    private double measure(CompiledPricingRules rules, List<CartLine> cart) {
+        double total = 0;
+        LocalTime time = LocalTime.of(12, 0);
+        for (int i = 0; i < WARMUP; i++)
+            total += rules.price(cart, time.plusMinutes(i % 720)).getTotalPrice();
+        long begin = System.nanoTime();
+        for (int i = 0; i < RUNS; i++)
+            total += rules.price(cart, time.plusMinutes(i % 720)).getTotalPrice();
+        long elapsed = System.nanoTime() - begin;
+        sink += total;
+        return elapsed / 1e3 / RUNS;
+    }
+
+    private List<PricingRule> rules(Random random, int size) {
+        List<PricingRule> rules = new ArrayList<>();
+        for (long id = 0; id < size; id++) {
+            boolean happyHour = random.nextBoolean();
+            int hour = random.nextInt(24);
+            PricingRule.PricingRuleBuilder rule = PricingRule.builder()
+                    .id(id)
+                    .type(happyHour ? PricingRuleType.HAPPY_HOUR : PricingRuleType.BUNDLE)
+                    .startTime(LocalTime.of(hour, 0))
+                    .endTime(LocalTime.of((hour + 3) % 24, 0));
+            if (random.nextInt(3) == 0)
+                rule.productType(randomType(random));
+            else
+                rule.productId((long) random.nextInt(PRODUCTS));
+            if (happyHour)
+                rule.discountPercent(5.0 + random.nextInt(30));
+            else
+                rule.bundleQuantity(2 + random.nextInt(3)).bundlePrice(10.0 + random.nextInt(20));
+            rules.add(rule.build());
+        }
+        return rules;
+    }
+
+    private static ProductTypes randomType(Random random) {
+        return ProductTypes.values()[random.nextInt(ProductTypes.values().length)];
+    }
+}
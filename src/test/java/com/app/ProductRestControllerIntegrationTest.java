@@ -3,6 +3,7 @@ package com.app;
 import com.app.model.*;
 import com.app.model.dto.ProductDto;
 import com.app.model.modelMappers.ModelMapper;
+import com.app.payloads.requests.AddProductToOrderPayload;
 import com.app.payloads.requests.LoginPayload;
 import com.app.repository.ProductRepository;
 import com.app.repository.RoleRepository;
@@ -32,9 +33,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -145,6 +152,144 @@ public class ProductRestControllerIntegrationTest {
         Assert.assertEquals(countBefore - 1, productRepository.findAll().size());
     }
 
+    @Test
+    public void productListFollowsStockAndCatalogChanges() throws Exception {
+        String token = getAuthToken();
+        mvc.perform(get("/api/product")
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].quantity").value(10));
+        mvc.perform(post("/api/order")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(new GsonBuilder().create().toJson(AddProductToOrderPayload.builder().productId(1L).quantity(3).build())))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/product")
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].quantity").value(7));
+        mvc.perform(delete("/api/product/2")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/product")
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    public void productInLiveOrderCannotBeDeleted() throws Exception {
+        String token = getAuthToken();
+        mvc.perform(post("/api/order")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .content(new GsonBuilder().create().toJson(AddProductToOrderPayload.builder().productId(1L).quantity(3).build())))
+                .andExpect(status().isOk());
+        mvc.perform(delete("/api/product/1")
+                .header("X-Auth-Token", token))
+                .andExpect(status().isConflict());
+        Assert.assertTrue(productRepository.findById(1L).isPresent());
+        Assert.assertTrue(productRepository.isInLiveOrders(1L));
+    }
+
+    @Test
+    public void productListAnswersNotModifiedWhileEtagMatches() throws Exception {
+        String etag = mvc.perform(get("/api/product")
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        Assert.assertNotNull(etag);
+        mvc.perform(get("/api/product")
+                .header("Accept", "application/json")
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mvc.perform(delete("/api/product/2")
+                .header("X-Auth-Token", getAuthToken()))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/product")
+                .header("Accept", "application/json")
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mvc.perform(get("/api/statistic/etags")
+                .header("X-Auth-Token", getAuthToken())
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].endpoint").value("product.list"))
+                .andExpect(jsonPath("$[0].requests").value(3))
+                .andExpect(jsonPath("$[0].notModified").value(1));
+    }
+
+    @Test
+    public void productPageFiltersSortsAndPages() throws Exception {
+        productRepository.save(Product.builder().brand("Ccc").description("Cdesc").quantity(3).price(5.0).productType("BEER").build());
+        productRepository.save(Product.builder().brand("Ddd").description("Ddesc").quantity(0).price(15.0).productType("SPICY_WINGS").build());
+        mvc.perform(get("/api/product/page?type=BEER&maxPrice=10&sort=PRICE&size=2")
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.products[0].brand").value("Ccc"))
+                .andExpect(jsonPath("$.products[1].brand").value("Aaa"))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.hasNext").value(true));
+        mvc.perform(get("/api/product/page?type=BEER&maxPrice=10&sort=PRICE&size=2&page=1")
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(1))
+                .andExpect(jsonPath("$.products[0].brand").value("Bbb"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+        mvc.perform(get("/api/product/page?inStock=true&sort=PRICE&direction=DESC")
+                .header("Accept", "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.products[0].price").value(10.0))
+                .andExpect(jsonPath("$.products[2].productType").value("BEER"));
+    }
+
+    @Test
+    public void imageIsSwappedInAfterAsyncUploadWithRetry() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        ProductDto productDto = productRepository.findById(2L).map(modelMapper::fromProductToProductDto).orElseThrow(NullPointerException::new);
+        when(amazonClient.uploadFile(any(), any(), anyLong(), any())).thenThrow(new IllegalStateException("S3 unavailable")).thenReturn("http://s3/bucket/new.png");
+        mvc.perform(MockMvcRequestBuilders.multipart("/api/product")
+                .file("file", new byte[]{1, 2, 3})
+                .param("productDto", gsonBuilder.toJson(productDto))
+                .header("X-Auth-Token", getAuthToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imgUrl").value("test.jpg"))
+                .andExpect(jsonPath("$.imageStatus").value("PENDING"));
+
+        verify(amazonClient, timeout(10000)).deleteFileFromS3Bucket("test.jpg");
+        Product product = productRepository.findById(2L).get();
+        Assert.assertEquals(ImageStatus.READY, product.getImageStatus());
+        Assert.assertEquals("http://s3/bucket/new.png", product.getImgUrl());
+        Assert.assertNull(product.getPendingImage());
+    }
+
+    @Test
+    public void imageIsMarkedFailedWhenSwapKeepsFailing() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        ProductDto productDto = productRepository.findById(2L).map(modelMapper::fromProductToProductDto).orElseThrow(NullPointerException::new);
+        String tooLong = "http://s3/bucket/" + String.join("", Collections.nCopies(300, "x")) + ".png";
+        when(amazonClient.uploadFile(any(), any(), anyLong(), any())).thenReturn(tooLong);
+        mvc.perform(MockMvcRequestBuilders.multipart("/api/product")
+                .file("file", new byte[]{1, 2, 3})
+                .param("productDto", gsonBuilder.toJson(productDto))
+                .header("X-Auth-Token", getAuthToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageStatus").value("PENDING"));
+
+        verify(amazonClient, timeout(10000)).deleteFileFromS3Bucket(tooLong);
+        Product product = productRepository.findById(2L).get();
+        Assert.assertEquals(ImageStatus.FAILED, product.getImageStatus());
+        Assert.assertEquals("test.jpg", product.getImgUrl());
+        Assert.assertNull(product.getPendingImage());
+    }
+
     private String getAuthToken() throws Exception {
         Gson gsonBuilder = new GsonBuilder().create();
         return mvc.perform(post("/api/auth/signin")
@@ -0,0 +1,127 @@
+package com.app;
+
+import com.app.model.OrderStatus;
+import com.app.model.ProductTypes;
+import com.app.model.dto.OrderDto;
+import com.app.model.dto.OrderItemDto;
+import com.app.model.dto.ProductDto;
+import com.app.payloads.responses.QueueSimulationPayload;
+import com.app.queue.OrderQueue;
+import com.app.queue.QueueSimulation;
+import com.app.queue.ServiceTimeEstimator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"spring.profiles.active=test", "queue.policy=weighted"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class QueuePolicyIntegrationTest {
+
+    @Autowired
+    private OrderQueue orderQueue;
+    @Autowired
+    private QueueSimulation queueSimulation;
+    @Autowired
+    private ServiceTimeEstimator serviceTimeEstimator;
+
+    @After
+    public void clearQueue() {
+        orderQueue.getOrders().forEach(order -> orderQueue.update(null, OrderDto.builder().id(order.getId()).status(OrderStatus.CLOSED).build()));
+    }
+
+    @Test
+    public void shortOrderOvertakesLongOrderButNotForever() {
+        LocalDateTime now = LocalDateTime.now();
+        orderQueue.update(1L, order(1001L, OrderStatus.QUEUED, now, ProductTypes.BEER_TAP, 12));
+        orderQueue.update(2L, order(1002L, OrderStatus.QUEUED, now.plusSeconds(30), ProductTypes.BEER, 1));
+        orderQueue.update(3L, order(1003L, OrderStatus.QUEUED, now.plusHours(1), ProductTypes.BEER, 1));
+
+        Assert.assertEquals("weighted", orderQueue.getPolicyName());
+        Assert.assertEquals(Integer.valueOf(0), orderQueue.getPosition(1002L).get());
+        Assert.assertEquals(Integer.valueOf(1), orderQueue.getPosition(1001L).get());
+        Assert.assertEquals(Integer.valueOf(2), orderQueue.getPosition(1003L).get());
+    }
+
+    @Test
+    public void estimatedCompleteTimeFollowsWorkAheadAndCompletions() {
+        LocalDateTime now = LocalDateTime.now();
+        orderQueue.update(1L, order(1001L, OrderStatus.QUEUED, now.minusMinutes(2), ProductTypes.BEER_TAP, 2));
+        orderQueue.update(2L, order(1002L, OrderStatus.QUEUED, now.minusMinutes(1), ProductTypes.BEER_TAP, 2));
+
+        LocalDateTime first = orderQueue.getEstimatedCompleteTime(1001L).get();
+        LocalDateTime second = orderQueue.getEstimatedCompleteTime(1002L).get();
+        Assert.assertTrue(second.isAfter(first));
+        Assert.assertEquals(orderQueue.getOrders().get(1).getEstimatedCompleteTime().withNano(0), second.withNano(0));
+
+        double before = serviceTimeEstimator.getUnitSeconds(ProductTypes.BEER_TAP);
+        OrderDto completed = order(1001L, OrderStatus.COMPLETED, now.minusMinutes(2), ProductTypes.BEER_TAP, 2);
+        completed.setCompleteTime(now.minusMinutes(2).plusSeconds(600));
+        serviceTimeEstimator.observe(completed);
+        Assert.assertTrue(serviceTimeEstimator.getUnitSeconds(ProductTypes.BEER_TAP) > before);
+
+        orderQueue.update(1L, completed);
+        Assert.assertFalse(orderQueue.getEstimatedCompleteTime(1001L).isPresent());
+    }
+
+    @Test
+    public void onlyOrdersBehindAChangeAreReported() {
+        LocalDateTime now = LocalDateTime.now();
+        orderQueue.update(1L, order(1001L, OrderStatus.QUEUED, now.minusMinutes(3), ProductTypes.BEER, 1));
+        orderQueue.update(2L, order(1002L, OrderStatus.QUEUED, now.minusMinutes(2), ProductTypes.BEER, 1));
+        orderQueue.update(3L, order(1003L, OrderStatus.QUEUED, now.minusMinutes(1), ProductTypes.BEER, 1));
+        Set<Long> users = new HashSet<>(Arrays.asList(1L, 2L, 3L));
+        Assert.assertEquals(3, orderQueue.takeChangedPositions(users).size());
+        Assert.assertTrue(orderQueue.takeChangedPositions(users).isEmpty());
+
+        orderQueue.update(2L, OrderDto.builder().id(1002L).status(OrderStatus.CLOSED).build());
+        Map<Long, Map<Long, Integer>> changed = orderQueue.takeChangedPositions(users);
+        Assert.assertEquals(Collections.singleton(3L), changed.keySet());
+        Assert.assertEquals(Integer.valueOf(1), changed.get(3L).get(1003L));
+    }
+
+    @Test
+    public void simulationReportsEveryPolicy() {
+        LocalDateTime start = LocalDateTime.now().minusHours(4);
+        List<OrderDto> orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            orders.add(order((long) i, OrderStatus.CLOSED, start.plusSeconds(i * 60L), i % 5 == 0 ? ProductTypes.BEER_TAP : ProductTypes.BEER, i % 5 == 0 ? 6 : 1));
+
+        Map<String, QueueSimulationPayload> results = queueSimulation.simulate(orders, 1).stream()
+                .collect(Collectors.toMap(QueueSimulationPayload::getPolicy, result -> result));
+
+        Assert.assertEquals(3, results.size());
+        results.values().forEach(result -> {
+            Assert.assertEquals(200, result.getOrders());
+            Assert.assertTrue(result.getMeanWaitSeconds() <= result.getP95WaitSeconds());
+            Assert.assertTrue(result.getP95WaitSeconds() <= result.getMaxWaitSeconds());
+        });
+        Assert.assertTrue(results.get("sjf").getMeanWaitSeconds() <= results.get("fifo").getMeanWaitSeconds());
+        Assert.assertTrue(results.get("weighted").getMaxWaitSeconds() <= results.get("sjf").getMaxWaitSeconds());
+    }
+
+    private OrderDto order(Long id, OrderStatus status, LocalDateTime startedTime, ProductTypes type, int quantity) {
+        ProductDto product = ProductDto.builder().id(1L).productType(type).build();
+        return OrderDto.builder()
+                .id(id)
+                .status(status)
+                .startedTime(startedTime)
+                .orderItemsDto(Collections.singletonList(OrderItemDto.builder().productDto(product).quantity(quantity).build()))
+                .build();
+    }
+}
@@ -0,0 +1,228 @@
+package com.app;
+
+import com.app.exception.ConcurrentUpdateException;
+import com.app.exception.InvalidQuantityException;
+import com.app.exception.ResourceNotFoundException;
+import com.app.exception.VersionRequiredException;
+import com.app.model.Order;
+import com.app.model.OrderStatus;
+import com.app.model.Product;
+import com.app.model.User;
+import com.app.model.dto.ProductDto;
+import com.app.payloads.requests.AddProductToOrderPayload;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import com.app.service.CartReservationService;
+import com.app.service.CartService;
+import com.app.service.ProductService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.profiles.active=test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class StockReservationIntegrationTest {
+    private static final int THREADS = 16;
+    private static final int STOCK = 500;
+    private static final int ATTEMPTS = 2000;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private CartReservationService cartReservationService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void concurrentReservationsOnHotProductNeverOversell() throws Exception {
+        Product product = productRepository.save(Product.builder().brand("Tap").description("Hot").quantity(STOCK).price(10.0).productType("BEER_TAP").orderItems(new LinkedList<>()).build());
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new LinkedList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                if (productRepository.reserveQuantity(product.getId(), 1) == 1)
+                    reserved.incrementAndGet();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        Assert.assertEquals(STOCK, reserved.get());
+        Assert.assertEquals(Integer.valueOf(0), productRepository.findById(product.getId()).get().getQuantity());
+    }
+
+    @Test
+    public void releaseReturnsStock() {
+        Product product = productRepository.save(Product.builder().brand("Tap").description("Hot").quantity(1).price(10.0).productType("BEER_TAP").orderItems(new LinkedList<>()).build());
+        Assert.assertEquals(0, productRepository.reserveQuantity(product.getId(), 2));
+        Assert.assertEquals(1, productRepository.reserveQuantity(product.getId(), 1));
+        Assert.assertEquals(1, productRepository.releaseQuantity(product.getId(), 3));
+        Assert.assertEquals(Integer.valueOf(3), productRepository.findById(product.getId()).get().getQuantity());
+    }
+
+    @Test
+    public void expiredCartReleasesStock() {
+        Product product = productRepository.save(Product.builder().brand("Tap").description("Hot").quantity(10).price(10.0).productType("BEER_TAP").orderItems(new LinkedList<>()).build());
+        Long userId = userRepository.save(User.builder().email("cart@test.com").username("cart").password("123").build()).getId();
+        cartService.order(userId, AddProductToOrderPayload.builder().productId(product.getId()).quantity(4).build());
+        Assert.assertEquals(Integer.valueOf(6), productRepository.findById(product.getId()).get().getQuantity());
+
+        Assert.assertEquals(0, cartReservationService.releaseExpiredReservations().getLastReleasedCarts());
+        Order cart = orderRepository.findByUserIdAndStatus(userId, OrderStatus.NOT_PAID).get();
+        cart.setReservedUntil(LocalDateTime.now().minusMinutes(1));
+        orderRepository.save(cart);
+
+        Assert.assertEquals(4, cartReservationService.releaseExpiredReservations().getLastReleasedUnits());
+        Assert.assertEquals(Integer.valueOf(10), productRepository.findById(product.getId()).get().getQuantity());
+        Assert.assertFalse(orderRepository.findByUserIdAndStatus(userId, OrderStatus.NOT_PAID).isPresent());
+    }
+
+    @Test
+    public void removedCartItemReleasesStockAndLeavesCart() {
+        Product beer = productRepository.save(Product.builder().brand("Tap").description("Hot").quantity(10).price(10.0).productType("BEER_TAP").orderItems(new LinkedList<>()).build());
+        Product wings = productRepository.save(Product.builder().brand("Wings").description("Hot").quantity(10).price(15.0).productType("SPICY_WINGS").orderItems(new LinkedList<>()).build());
+        Long userId = userRepository.save(User.builder().email("remove@test.com").username("remove").password("123").build()).getId();
+        cartService.order(userId, AddProductToOrderPayload.builder().productId(beer.getId()).quantity(3).build());
+        Long orderId = cartService.order(userId, AddProductToOrderPayload.builder().productId(wings.getId()).quantity(2).build()).getId();
+        Assert.assertEquals(Integer.valueOf(7), productRepository.findById(beer.getId()).get().getQuantity());
+
+        Assert.assertEquals(1, cartService.deleteProductFromOrder(orderId, beer.getId()).getOrderItemsDto().size());
+
+        Order cart = orderRepository.findWithItemsById(orderId).get();
+        Assert.assertEquals(1, cart.getOrderItems().size());
+        Assert.assertEquals(wings.getId(), cart.getOrderItems().get(0).getProduct().getId());
+        Assert.assertEquals(Double.valueOf(30.0), cart.getTotalPrice());
+        Assert.assertEquals(Integer.valueOf(10), productRepository.findById(beer.getId()).get().getQuantity());
+        Assert.assertEquals(Integer.valueOf(8), productRepository.findById(wings.getId()).get().getQuantity());
+        Assert.assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject("select count(*) from order_item where product_id = ?", Integer.class, beer.getId()));
+    }
+
+    @Test
+    public void negativeDeltasShrinkAndDropCartLines() {
+        Product beer = productRepository.save(Product.builder().brand("Tap").description("Hot").quantity(10).price(10.0).productType("BEER_TAP").orderItems(new LinkedList<>()).build());
+        Product wings = productRepository.save(Product.builder().brand("Wings").description("Hot").quantity(10).price(15.0).productType("SPICY_WINGS").orderItems(new LinkedList<>()).build());
+        Long userId = userRepository.save(User.builder().email("delta@test.com").username("delta").password("123").build()).getId();
+        Long orderId = cartService.changeOrder(userId, Arrays.asList(
+                AddProductToOrderPayload.builder().productId(beer.getId()).quantity(3).build(),
+                AddProductToOrderPayload.builder().productId(wings.getId()).quantity(2).build())).getId();
+
+        cartService.changeOrder(userId, Arrays.asList(
+                AddProductToOrderPayload.builder().productId(beer.getId()).quantity(-1).build(),
+                AddProductToOrderPayload.builder().productId(wings.getId()).quantity(-5).build()));
+
+        Order cart = orderRepository.findWithItemsById(orderId).get();
+        Assert.assertEquals(1, cart.getOrderItems().size());
+        Assert.assertEquals(Integer.valueOf(2), cart.getOrderItems().get(0).getQuantity());
+        Assert.assertEquals(Double.valueOf(20.0), cart.getTotalPrice());
+        Assert.assertEquals(Integer.valueOf(8), productRepository.findById(beer.getId()).get().getQuantity());
+        Assert.assertEquals(Integer.valueOf(10), productRepository.findById(wings.getId()).get().getQuantity());
+        Assert.assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject("select count(*) from order_item where product_id = ?", Integer.class, wings.getId()));
+    }
+
+    @Test
+    public void reducingLastUnitDropsLineAndReleasesItOnce() {
+        Product beer = productRepository.save(Product.builder().brand("Tap").description("Hot").quantity(10).price(10.0).productType("BEER_TAP").orderItems(new LinkedList<>()).build());
+        Product wings = productRepository.save(Product.builder().brand("Wings").description("Hot").quantity(10).price(15.0).productType("SPICY_WINGS").orderItems(new LinkedList<>()).build());
+        Long userId = userRepository.save(User.builder().email("reduce@test.com").username("reduce").password("123").build()).getId();
+        Long otherId = userRepository.save(User.builder().email("other@test.com").username("other").password("123").build()).getId();
+        cartService.order(userId, AddProductToOrderPayload.builder().productId(beer.getId()).quantity(2).build());
+        Long orderId = cartService.order(userId, AddProductToOrderPayload.builder().productId(wings.getId()).quantity(1).build()).getId();
+        AddProductToOrderPayload reduceBeer = AddProductToOrderPayload.builder().productId(beer.getId()).quantity(1).build();
+
+        Assert.assertEquals(2, cartService.reduceQuantity(userId, orderId, reduceBeer).getOrderItemsDto().size());
+        Assert.assertEquals(1, cartService.reduceQuantity(userId, orderId, reduceBeer).getOrderItemsDto().size());
+        AddProductToOrderPayload reduceWings = AddProductToOrderPayload.builder().productId(wings.getId()).quantity(1).build();
+        for (Runnable reduce : new Runnable[]{() -> cartService.reduceQuantity(userId, orderId, reduceBeer), () -> cartService.reduceQuantity(otherId, orderId, reduceWings)}) {
+            try {
+                reduce.run();
+                Assert.fail();
+            } catch (ResourceNotFoundException e) {
+                Assert.assertEquals(Integer.valueOf(10), productRepository.findById(beer.getId()).get().getQuantity());
+                Assert.assertEquals(Integer.valueOf(9), productRepository.findById(wings.getId()).get().getQuantity());
+            }
+        }
+
+        Order cart = orderRepository.findWithItemsById(orderId).get();
+        Assert.assertEquals(1, cart.getOrderItems().size());
+        Assert.assertEquals(Double.valueOf(15.0), cart.getTotalPrice());
+        Assert.assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject("select count(*) from order_item where product_id = ?", Integer.class, beer.getId()));
+    }
+
+    @Test
+    public void nonPositiveQuantitiesNeverMoveStock() {
+        Product product = productRepository.save(Product.builder().brand("Tap").description("Hot").quantity(10).price(10.0).productType("BEER_TAP").orderItems(new LinkedList<>()).build());
+        Long userId = userRepository.save(User.builder().email("negative@test.com").username("negative").password("123").build()).getId();
+        Assert.assertEquals(0, productRepository.reserveQuantity(product.getId(), -5));
+        Assert.assertEquals(0, productRepository.releaseQuantity(product.getId(), -5));
+        for (int quantity : new int[]{0, -5}) {
+            try {
+                cartService.order(userId, AddProductToOrderPayload.builder().productId(product.getId()).quantity(quantity).build());
+                Assert.fail();
+            } catch (InvalidQuantityException e) {
+                Assert.assertEquals(Integer.valueOf(10), productRepository.findById(product.getId()).get().getQuantity());
+            }
+            try {
+                cartService.changeOrder(userId, Collections.singletonList(AddProductToOrderPayload.builder().productId(product.getId()).quantity(quantity).build()));
+                Assert.fail();
+            } catch (InvalidQuantityException e) {
+                Assert.assertEquals(Integer.valueOf(10), productRepository.findById(product.getId()).get().getQuantity());
+            }
+        }
+        Assert.assertFalse(orderRepository.findByUserIdAndStatus(userId, OrderStatus.NOT_PAID).map(order -> !order.getOrderItems().isEmpty()).orElse(false));
+    }
+
+    @Test
+    public void staleProductUpdateDoesNotOverwriteStock() throws Exception {
+        Product product = productRepository.save(Product.builder().brand("Tap").description("Hot").quantity(10).price(10.0).productType("BEER_TAP").orderItems(new LinkedList<>()).build());
+        ProductDto stale = productService.getProduct(product.getId());
+        Assert.assertEquals(1, productRepository.reserveQuantity(product.getId(), 3));
+
+        stale.setPrice(12.0);
+        try {
+            productService.addOrUpdateProduct(stale, null);
+            Assert.fail();
+        } catch (ConcurrentUpdateException e) {
+            Assert.assertEquals(Integer.valueOf(7), productRepository.findById(product.getId()).get().getQuantity());
+        }
+
+        stale.setVersion(null);
+        try {
+            productService.addOrUpdateProduct(stale, null);
+            Assert.fail();
+        } catch (VersionRequiredException e) {
+            Assert.assertEquals(Integer.valueOf(7), productRepository.findById(product.getId()).get().getQuantity());
+        }
+
+        Assert.assertEquals(Double.valueOf(12.0), productService.changePrice(product.getId(), 12.0).getPrice());
+        Assert.assertEquals(Integer.valueOf(7), productRepository.findById(product.getId()).get().getQuantity());
+    }
+}
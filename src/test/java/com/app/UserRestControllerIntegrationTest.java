@@ -6,7 +6,10 @@ import com.app.model.RoleName;
 import com.app.model.User;
 import com.app.model.dto.UserDto;
 import com.app.model.modelMappers.ModelMapper;
+import com.app.payloads.domain.Amount;
+import com.app.payloads.domain.Transactions;
 import com.app.payloads.requests.LoginPayload;
+import com.app.payloads.requests.PayPalPayload;
 import com.app.payloads.requests.RegisterPayload;
 import com.app.payloads.responses.ApiPayload;
 import com.app.repository.ProductRepository;
@@ -113,6 +116,37 @@ public class UserRestControllerIntegrationTest {
                 .andExpect(content().json(gsonBuilder.toJson(userDto.getBalance())));
     }
 
+    @Test
+    public void addMoneyWithIdempotencyKeyTest() throws Exception {
+        Gson gsonBuilder = new GsonBuilder().create();
+        String token = getAuthToken();
+        PayPalPayload payPalPayload = PayPalPayload.builder().transactions(new Transactions[]{new Transactions(new Amount(5.0))}).build();
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(post("/api/user/addMoney")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("X-Auth-Token", token)
+                    .header("Idempotency-Key", "top-up-1")
+                    .content(gsonBuilder.toJson(payPalPayload)))
+                    .andExpect(status().isOk());
+        }
+        Assert.assertEquals(110.0, userRepository.findById(1L).get().getBalance(), 0.0001);
+
+        PayPalPayload otherPayload = PayPalPayload.builder().transactions(new Transactions[]{new Transactions(new Amount(7.0))}).build();
+        mvc.perform(post("/api/user/addMoney")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .header("Idempotency-Key", "top-up-1")
+                .content(gsonBuilder.toJson(otherPayload)))
+                .andExpect(status().isUnprocessableEntity());
+        mvc.perform(post("/api/user/addMoney")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Auth-Token", token)
+                .header("Idempotency-Key", "top-up-2")
+                .content(gsonBuilder.toJson(otherPayload)))
+                .andExpect(status().isOk());
+        Assert.assertEquals(124.0, userRepository.findById(1L).get().getBalance(), 0.0001);
+    }
+
     private String getAuthToken() throws Exception {
         Gson gsonBuilder = new GsonBuilder().create();
         return mvc.perform(post("/api/auth/signin")